@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Loads the payload the demo app benchmarks with. */
+final class BenchmarkInput {
+  private BenchmarkInput() {}
+
+  /** Returns the contents of {@code benchmark_input.json}, a single {@code IgModelRequest}. */
+  static String read() throws IOException {
+    InputStream inputStream = BenchmarkInput.class.getResourceAsStream("/benchmark_input.json");
+    if (inputStream == null) {
+      throw new IOException("benchmark_input.json is not on the classpath");
+    }
+    try {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int read = inputStream.read(buffer); read != -1; read = inputStream.read(buffer)) {
+        outputStream.write(buffer, 0, read);
+      }
+      return outputStream.toString("UTF-8");
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  /** Returns a list of {@code count} copies of the payload, as the demo app builds it. */
+  static String readList(int count) throws IOException {
+    String input = read();
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("{\"list\": [");
+    for (int ix = 0; ix < count; ix++) {
+      if (ix != 0) {
+        sb.append(",");
+      }
+      sb.append(input);
+    }
+    sb.append("]}");
+
+    return sb.toString();
+  }
+}
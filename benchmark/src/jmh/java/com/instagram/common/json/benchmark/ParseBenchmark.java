@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.benchmark;
+
+import com.instagram.common.json.app.igmodel.IgModelRequest;
+import com.instagram.common.json.app.igmodel.IgModelRequest__JsonHelper;
+import com.instagram.common.json.app.igmodel.IgModelWorker;
+import com.instagram.common.json.app.ommodel.OmModelRequest;
+import com.instagram.common.json.app.ommodel.OmModelWorker;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Parses a single {@code IgModelRequest} with the generated helper and with jackson databind. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+  private final IgModelWorker mIgModelWorker = new IgModelWorker();
+  private final OmModelWorker mOmModelWorker = new OmModelWorker();
+
+  private String mInput;
+  private byte[] mInputBytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    mInput = BenchmarkInput.read();
+    mInputBytes = mInput.getBytes("UTF-8");
+  }
+
+  @Benchmark
+  public IgModelRequest igParseString() throws IOException {
+    return mIgModelWorker.parseFromString(mInput);
+  }
+
+  @Benchmark
+  public IgModelRequest igParseBytes() throws IOException {
+    return IgModelRequest__JsonHelper.parseFromJson(mInputBytes);
+  }
+
+  @Benchmark
+  public OmModelRequest omParseString() throws IOException {
+    return mOmModelWorker.parseFromString(mInput);
+  }
+}
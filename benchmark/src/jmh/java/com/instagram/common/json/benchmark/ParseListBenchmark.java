@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.benchmark;
+
+import com.instagram.common.json.app.igmodel.IgListOfModels;
+import com.instagram.common.json.app.igmodel.IgModelWorker;
+import com.instagram.common.json.app.ommodel.OmListOfModels;
+import com.instagram.common.json.app.ommodel.OmModelWorker;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses a list of {@code IgModelRequest}s with the generated helper and with jackson databind,
+ * like the demo app does for more than one iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ParseListBenchmark {
+  private final IgModelWorker mIgModelWorker = new IgModelWorker();
+  private final OmModelWorker mOmModelWorker = new OmModelWorker();
+
+  @Param({"10", "100"})
+  public int listSize;
+
+  private String mInput;
+
+  @Setup
+  public void setUp() throws IOException {
+    mInput = BenchmarkInput.readList(listSize);
+  }
+
+  @Benchmark
+  public IgListOfModels igParseList() throws IOException {
+    return mIgModelWorker.parseListFromString(mInput);
+  }
+
+  @Benchmark
+  public OmListOfModels omParseList() throws IOException {
+    return mOmModelWorker.parseListFromString(mInput);
+  }
+}
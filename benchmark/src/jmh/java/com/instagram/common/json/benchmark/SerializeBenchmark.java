@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.benchmark;
+
+import com.instagram.common.json.app.igmodel.IgModelRequest;
+import com.instagram.common.json.app.igmodel.IgModelRequest__JsonHelper;
+import com.instagram.common.json.app.igmodel.IgModelWorker;
+import com.instagram.common.json.app.ommodel.OmModelRequest;
+import com.instagram.common.json.app.ommodel.OmModelWorker;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Serializes a single {@code IgModelRequest} with the generated helper and with databind. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SerializeBenchmark {
+  private final IgModelWorker mIgModelWorker = new IgModelWorker();
+  private final OmModelWorker mOmModelWorker = new OmModelWorker();
+
+  private IgModelRequest mIgModel;
+  private OmModelRequest mOmModel;
+
+  @Setup
+  public void setUp() throws IOException {
+    String input = BenchmarkInput.read();
+    mIgModel = mIgModelWorker.parseFromString(input);
+    mOmModel = mOmModelWorker.parseFromString(input);
+  }
+
+  @Benchmark
+  public String igSerializeString() throws IOException {
+    return mIgModelWorker.serializeToString(mIgModel);
+  }
+
+  @Benchmark
+  public byte[] igSerializeBytes() throws IOException {
+    return IgModelRequest__JsonHelper.serializeToBytes(mIgModel);
+  }
+
+  @Benchmark
+  public String omSerializeString() throws IOException {
+    return mOmModelWorker.serializeToString(mOmModel);
+  }
+}
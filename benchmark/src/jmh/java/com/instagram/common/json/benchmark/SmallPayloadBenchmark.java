@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.benchmark;
+
+import com.instagram.common.json.JsonCodec;
+import com.instagram.common.json.app.igmodel.IgModelRequest;
+import com.instagram.common.json.app.igmodel.IgModelRequest__JsonHelper;
+import com.instagram.common.json.utf8.Utf8JsonCodec;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses and serializes an {@code IgModelRequest} that holds nothing but its {@code Meta}, with a
+ * new parser or generator for each document and with a {@link JsonCodec} that is reset instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SmallPayloadBenchmark {
+  private static final String INPUT = "{\"meta\": {\"code\": 200}}";
+
+  private final JsonCodec mCodec = new Utf8JsonCodec();
+  private IgModelRequest mIgModel;
+
+  @Setup
+  public void setUp() throws IOException {
+    mIgModel = IgModelRequest__JsonHelper.parseFromJson(INPUT);
+  }
+
+  @Benchmark
+  public IgModelRequest parseWithNewParser() throws IOException {
+    return IgModelRequest__JsonHelper.parseFromJson(INPUT);
+  }
+
+  @Benchmark
+  public IgModelRequest parseWithCodec() throws IOException {
+    return IgModelRequest__JsonHelper.parseFromJson(mCodec, INPUT);
+  }
+
+  @Benchmark
+  public String serializeWithNewGenerator() throws IOException {
+    return IgModelRequest__JsonHelper.serializeToJson(mIgModel);
+  }
+
+  @Benchmark
+  public int serializeWithCodec() throws IOException {
+    IgModelRequest__JsonHelper.serializeToJson(mCodec, mIgModel);
+    return mCodec.getOutput().size();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.instagram.common.json.JsonFactoryHolder;
+import com.instagram.common.json.app.igmodel.IgModelRequest;
+import com.instagram.common.json.app.igmodel.IgModelRequest__JsonHelper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Parses a batch of {@code IgModelRequest}s, one per task, on a fixed pool of platform threads and
+ * on a new virtual thread per task. Each task takes its buffers either from the shared pool, as
+ * the generated {@code parseFromJson(String)} does, or from jackson's per-thread recycler. Compare
+ * the allocation rates from the {@code gc} profiler: a virtual thread never reuses jackson's
+ * per-thread buffers.
+ *
+ * <p>Virtual threads need Java 21 or later; on older runtimes the {@code virtual} runs fail.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ThreadBufferBenchmark {
+  private static final int BATCH_SIZE = 64;
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"pool", "threadLocal"})
+  public String buffers;
+
+  private ExecutorService mExecutor;
+  private List<Callable<IgModelRequest>> mTasks;
+
+  @Setup
+  public void setUp() throws Exception {
+    final String input = BenchmarkInput.read();
+    if ("virtual".equals(threads)) {
+      try {
+        mExecutor =
+            (ExecutorService)
+                Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (NoSuchMethodException e) {
+        throw new UnsupportedOperationException("virtual threads need Java 21 or later", e);
+      }
+    } else {
+      mExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    Callable<IgModelRequest> task;
+    if ("pool".equals(buffers)) {
+      task =
+          new Callable<IgModelRequest>() {
+            @Override
+            public IgModelRequest call() throws IOException {
+              return IgModelRequest__JsonHelper.parseFromJson(input);
+            }
+          };
+    } else {
+      task =
+          new Callable<IgModelRequest>() {
+            @Override
+            public IgModelRequest call() throws IOException {
+              JsonParser jp = JsonFactoryHolder.getAppFactory().createParser(input);
+              try {
+                jp.nextToken();
+                return IgModelRequest__JsonHelper.parseFromJson(jp);
+              } finally {
+                jp.close();
+              }
+            }
+          };
+    }
+    mTasks = new ArrayList<Callable<IgModelRequest>>(BATCH_SIZE);
+    for (int ix = 0; ix < BATCH_SIZE; ix++) {
+      mTasks.add(task);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    mExecutor.shutdown();
+  }
+
+  @Benchmark
+  public int parseBatch() throws Exception {
+    int parsed = 0;
+    for (Future<IgModelRequest> future : mExecutor.invokeAll(mTasks)) {
+      if (future.get() != null) {
+        parsed++;
+      }
+    }
+    return parsed;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.instagram.common.json.JsonFactoryHolder;
+import com.instagram.common.json.app.igmodel.IgModelRequest;
+import com.instagram.common.json.app.igmodel.IgModelRequest__JsonHelper;
+import com.instagram.common.json.utf8.Utf8JsonParser;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses a single {@code IgModelRequest} from UTF-8 bytes with the generated helper, once through
+ * jackson's parser and once through {@link Utf8JsonParser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Utf8ParserBenchmark {
+  private byte[] mInputBytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    mInputBytes = BenchmarkInput.read().getBytes("UTF-8");
+  }
+
+  @Benchmark
+  public IgModelRequest jacksonParser() throws IOException {
+    JsonParser jp = JsonFactoryHolder.APP_FACTORY.createParser(mInputBytes);
+    try {
+      jp.nextToken();
+      return IgModelRequest__JsonHelper.parseFromJson(jp);
+    } finally {
+      jp.close();
+    }
+  }
+
+  @Benchmark
+  public IgModelRequest utf8Parser() throws IOException {
+    JsonParser jp = new Utf8JsonParser(mInputBytes);
+    jp.nextToken();
+    return IgModelRequest__JsonHelper.parseFromJson(jp);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free pool of jackson {@link BufferRecycler}s that is shared by all threads.
+ *
+ * <p>Jackson keeps one recycler per thread in a {@code ThreadLocal}, so a thread that is created
+ * for a single request, e.g. a virtual thread, allocates a fresh set of buffers for every parser
+ * it creates. A recycler taken from this pool is used for one parser or generator and then
+ * released, so its buffers are reused by whichever thread takes it next.
+ *
+ * <p>The pool is a fixed number of slots, each of which holds a recycler or is empty. Taking or
+ * releasing a recycler is a single compare-and-set on a slot. The current thread's id only picks
+ * the slot a search starts at, to spread threads over the slots; recyclers are not tied to the
+ * thread that released them. When every slot is empty a new recycler is created, and when every
+ * slot is full a released recycler is dropped.
+ */
+public final class BufferRecyclerPool {
+  private final AtomicReferenceArray<BufferRecycler> mSlots;
+  private final int mMask;
+
+  /** Creates a pool with at least the given number of slots. */
+  public BufferRecyclerPool(int size) {
+    int slots = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+    mSlots = new AtomicReferenceArray<BufferRecycler>(slots);
+    mMask = slots - 1;
+  }
+
+  /** Creates a pool with two slots for each processor. */
+  public BufferRecyclerPool() {
+    this(2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Takes a recycler from the pool, or creates one if the pool is empty. The caller has to be the
+   * only user of the recycler until it is passed to {@link #release}.
+   */
+  public BufferRecycler acquire() {
+    int start = probe();
+    for (int i = 0; i <= mMask; i++) {
+      int slot = (start + i) & mMask;
+      BufferRecycler bufferRecycler = mSlots.get(slot);
+      if (bufferRecycler != null && mSlots.compareAndSet(slot, bufferRecycler, null)) {
+        return bufferRecycler;
+      }
+    }
+    return new BufferRecycler();
+  }
+
+  /**
+   * Returns a recycler to the pool. Every parser and generator created with it must have been
+   * closed, so that their buffers are back in the recycler.
+   */
+  public void release(BufferRecycler bufferRecycler) {
+    int start = probe();
+    for (int i = 0; i <= mMask; i++) {
+      int slot = (start + i) & mMask;
+      if (mSlots.get(slot) == null && mSlots.compareAndSet(slot, null, bufferRecycler)) {
+        return;
+      }
+    }
+  }
+
+  private int probe() {
+    return (int) Thread.currentThread().getId() & mMask;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * The default {@link JsonBackend}, which creates jackson's parsers and generators. Given recyclers
+ * are only used if the factory is a {@link PooledJsonFactory}.
+ */
+public class JacksonBackend implements JsonBackend {
+  /** The factory to use, or null to use whichever one {@link JsonFactoryHolder} holds. */
+  private final JsonFactory mJsonFactory;
+
+  /** Uses {@link JsonFactoryHolder#getAppFactory()}, including any factory installed later. */
+  public JacksonBackend() {
+    this(null);
+  }
+
+  public JacksonBackend(JsonFactory jsonFactory) {
+    mJsonFactory = jsonFactory;
+  }
+
+  private JsonFactory getJsonFactory() {
+    return mJsonFactory != null ? mJsonFactory : JsonFactoryHolder.getAppFactory();
+  }
+
+  @Override
+  public JsonParser createParser(String content) throws IOException {
+    return getJsonFactory().createParser(content);
+  }
+
+  @Override
+  public JsonParser createParser(String content, BufferRecycler bufferRecycler)
+      throws IOException {
+    JsonFactory jsonFactory = getJsonFactory();
+    if (jsonFactory instanceof PooledJsonFactory) {
+      return ((PooledJsonFactory) jsonFactory).createParser(content, bufferRecycler);
+    }
+    return jsonFactory.createParser(content);
+  }
+
+  @Override
+  public JsonParser createParser(byte[] content, int offset, int length) throws IOException {
+    return getJsonFactory().createParser(content, offset, length);
+  }
+
+  @Override
+  public JsonParser createParser(InputStream inputStream) throws IOException {
+    return getJsonFactory().createParser(inputStream);
+  }
+
+  @Override
+  public JsonParser createParser(Reader reader) throws IOException {
+    return getJsonFactory().createParser(reader);
+  }
+
+  @Override
+  public JsonGenerator createGenerator(Writer writer) throws IOException {
+    return getJsonFactory().createGenerator(writer);
+  }
+
+  @Override
+  public JsonGenerator createGenerator(Writer writer, BufferRecycler bufferRecycler)
+      throws IOException {
+    JsonFactory jsonFactory = getJsonFactory();
+    if (jsonFactory instanceof PooledJsonFactory) {
+      return ((PooledJsonFactory) jsonFactory).createGenerator(writer, bufferRecycler);
+    }
+    return jsonFactory.createGenerator(writer);
+  }
+
+  @Override
+  public JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+    return getJsonFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+  }
+
+  @Override
+  public JsonGenerator createGenerator(OutputStream outputStream, BufferRecycler bufferRecycler)
+      throws IOException {
+    JsonFactory jsonFactory = getJsonFactory();
+    if (jsonFactory instanceof PooledJsonFactory) {
+      return ((PooledJsonFactory) jsonFactory).createGenerator(outputStream, bufferRecycler);
+    }
+    return jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+  }
+}
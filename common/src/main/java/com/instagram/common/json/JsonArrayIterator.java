@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Parses the elements of a json array one at a time, as they are asked for. Generated JsonHelpers
+ * return one from {@code iterateArray(JsonParser)}.
+ *
+ * <p>The parser must be positioned on the {@code START_ARRAY} token. If it is positioned on
+ * anything else, the value is skipped and the iterator is empty. Elements that parse to null are
+ * skipped, like they are when a list field is parsed. The iterator does not close the parser.
+ *
+ * <p>{@link Iterator} methods can not throw checked exceptions, so an {@link IOException} thrown
+ * while parsing an element is rethrown wrapped in a {@link JsonIterationException}.
+ */
+public abstract class JsonArrayIterator<T> implements Iterator<T> {
+
+  /** Thrown by {@link #hasNext()} and {@link #next()} when an element could not be parsed. */
+  public static class JsonIterationException extends RuntimeException {
+    public JsonIterationException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+
+  private final JsonParser mParser;
+  private boolean mDone;
+  private T mNext;
+
+  protected JsonArrayIterator(JsonParser jp) throws IOException {
+    mParser = jp;
+    if (jp.getCurrentToken() != JsonToken.START_ARRAY) {
+      jp.skipChildren();
+      mDone = true;
+    }
+  }
+
+  /** Parses the element the parser is positioned on. */
+  protected abstract T parseElement(JsonParser jp) throws IOException;
+
+  @Override
+  public boolean hasNext() {
+    try {
+      while (mNext == null && !mDone) {
+        JsonToken token = mParser.nextToken();
+        if (token == JsonToken.END_ARRAY || token == null) {
+          mDone = true;
+        } else {
+          mNext = parseElement(mParser);
+        }
+      }
+    } catch (IOException ex) {
+      mDone = true;
+      throw new JsonIterationException(ex);
+    }
+    return mNext != null;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    T next = mNext;
+    mNext = null;
+    return next;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Creates the parsers and generators that generated JsonHelpers read and write json with, whenever
+ * they are handed raw input or output instead of a parser or a generator.
+ *
+ * <p>The annotation processor uses {@link JacksonBackend} unless the {@code jsonBackend} option
+ * names another implementation, which needs a public no-argument constructor. Each generated
+ * helper creates one instance of it, so implementations must be safe to use from several threads.
+ *
+ * <p>The methods that take a {@link BufferRecycler} are handed one from the shared {@link
+ * BufferRecyclerPool}, which the caller releases once the parser or generator is closed. They may
+ * ignore it if they do not use jackson's buffers.
+ */
+public interface JsonBackend {
+
+  JsonParser createParser(String content) throws IOException;
+
+  JsonParser createParser(String content, BufferRecycler bufferRecycler) throws IOException;
+
+  JsonParser createParser(byte[] content, int offset, int length) throws IOException;
+
+  JsonParser createParser(InputStream inputStream) throws IOException;
+
+  JsonParser createParser(Reader reader) throws IOException;
+
+  JsonGenerator createGenerator(Writer writer) throws IOException;
+
+  JsonGenerator createGenerator(Writer writer, BufferRecycler bufferRecycler) throws IOException;
+
+  /** Returns a generator that writes UTF-8. */
+  JsonGenerator createGenerator(OutputStream outputStream) throws IOException;
+
+  /** Returns a generator that writes UTF-8. */
+  JsonGenerator createGenerator(OutputStream outputStream, BufferRecycler bufferRecycler)
+      throws IOException;
+}
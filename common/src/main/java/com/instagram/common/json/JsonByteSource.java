@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+/**
+ * Implemented by a {@link com.fasterxml.jackson.core.JsonParser} that reads json straight from a
+ * byte array, to tell where its current token is in that array. {@link JsonLazyValue} uses it to
+ * keep the bytes of a value as they are, instead of copying the value token by token.
+ */
+public interface JsonByteSource {
+
+  /** Returns the array the parser reads from. */
+  byte[] getInputBytes();
+
+  /** Returns the offset of the first byte of the current token in {@link #getInputBytes()}. */
+  int getTokenStart();
+
+  /** Returns the offset right after the last byte of the current token. */
+  int getTokenEnd();
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * A parser and a generator that are reset for each document instead of being created for it, for
+ * code that reads and writes many small documents, e.g. an RPC layer. For a payload of a few
+ * fields, creating a parser and its context costs more than parsing the fields. Generated helpers
+ * take a codec in their {@code parseFromJson(JsonCodec, ...)} and {@code serializeToJson(JsonCodec,
+ * T)} overloads.
+ *
+ * <p>A codec is not thread-safe, and a parser or a generator it returns is only valid until it is
+ * reset again. Keep one codec per thread, or take one from a pool for each message.
+ *
+ * <p>The generator writes every document into the same {@link JsonOutputBuffer}, as one root value
+ * after another. Subclasses provide the parser, which has to be able to start over on new input;
+ * see {@code Utf8JsonCodec} in the {@code utf8} module.
+ */
+public abstract class JsonCodec {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final JsonBackend sJacksonBackend = new JacksonBackend();
+
+  private final JsonOutputBuffer mOutput = new JsonOutputBuffer();
+  private JsonGenerator mGenerator;
+
+  /** Holds the UTF-8 encoding of the last string input, if it was plain ascii. */
+  private byte[] mInputBytes = new byte[256];
+
+  /**
+   * Returns the parser, reset to read the UTF-8 json in part of an array and positioned before its
+   * first token. The array must not be modified while the document is being parsed.
+   */
+  public abstract JsonParser resetParser(byte[] input, int offset, int length) throws IOException;
+
+  /** Returns the parser, reset to read the json in a string, positioned before its first token. */
+  public JsonParser resetParser(String input) throws IOException {
+    int length = input.length();
+    if (mInputBytes.length < length) {
+      mInputBytes = new byte[Math.max(length, mInputBytes.length * 2)];
+    }
+    for (int i = 0; i < length; i++) {
+      char c = input.charAt(i);
+      if (c >= 0x80) {
+        byte[] bytes = input.getBytes(UTF_8);
+        return resetParser(bytes, 0, bytes.length);
+      }
+      mInputBytes[i] = (byte) c;
+    }
+    return resetParser(mInputBytes, 0, length);
+  }
+
+  /** Discards the output of the previous document and returns the generator for the next one. */
+  public JsonGenerator resetGenerator() throws IOException {
+    if (mGenerator == null || !mGenerator.getOutputContext().inRoot()) {
+      // the first document, or the previous one failed halfway through and left the generator
+      // inside it.
+      mGenerator = sJacksonBackend.createGenerator(mOutput, new BufferRecycler());
+      mGenerator.setRootValueSeparator(null);
+    } else {
+      mGenerator.flush();
+    }
+    mOutput.reset();
+    return mGenerator;
+  }
+
+  /**
+   * Returns the UTF-8 json written since the generator was last reset. The buffer is reused for
+   * the next document.
+   */
+  public JsonOutputBuffer getOutput() throws IOException {
+    if (mGenerator != null) {
+      mGenerator.flush();
+    }
+    return mOutput;
+  }
+
+  /** Returns the json written since the generator was last reset, as a string. */
+  public String getOutputString() throws IOException {
+    JsonOutputBuffer output = getOutput();
+    return new String(output.getBuffer(), 0, output.size(), UTF_8);
+  }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import java.io.IOException;
+
+/**
+ * Receives the elements of a json array one at a time, as they are parsed. Passed to the {@code
+ * forEachInArray} method of a generated JsonHelper.
+ */
+public interface JsonElementConsumer<T> {
+
+  /**
+   * Called with each element of the array, in order. The parser is positioned on the last token of
+   * the element.
+   */
+  void accept(T element) throws IOException;
+}
@@ -8,8 +8,59 @@
 package com.instagram.common.json;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.BufferRecycler;
 
-/** Holds the {@link JsonFactory} singleton. */
+/**
+ * Holds the {@link JsonFactory} that generated helpers create their parsers and generators with.
+ *
+ * <p>The factory can be replaced with one that is configured for the workload, e.g. with {@link
+ * JsonFactory.Feature#INTERN_FIELD_NAMES} disabled for a short-lived batch job. Install it once at
+ * startup, before anything is parsed; parsers and generators that already exist keep the factory
+ * they were created with. To use a different factory for a single call, pass it to the {@code
+ * JsonFactory} overloads of the generated helpers instead.
+ *
+ * <p>It also holds the {@link BufferRecyclerPool} that generated helpers take their buffers from
+ * when they parse a string or serialize an object. Those buffers are only pooled while the
+ * installed factory is a {@link PooledJsonFactory}, as the default one is. With any other factory,
+ * the pool is not touched and the helpers create their parsers and generators the plain way, with
+ * jackson's per-thread buffers.
+ */
 public class JsonFactoryHolder {
-  public static final JsonFactory APP_FACTORY = new JsonFactory();
+  /** The factory that is used until another one is installed. */
+  public static final JsonFactory APP_FACTORY = new PooledJsonFactory();
+
+  private static volatile JsonFactory sAppFactory = APP_FACTORY;
+
+  private static final BufferRecyclerPool sBufferRecyclerPool = new BufferRecyclerPool();
+
+  /** Returns the factory that is currently installed. */
+  public static JsonFactory getAppFactory() {
+    return sAppFactory;
+  }
+
+  /** Installs the factory that generated helpers use from now on. */
+  public static void setAppFactory(JsonFactory appFactory) {
+    if (appFactory == null) {
+      throw new NullPointerException("appFactory");
+    }
+    sAppFactory = appFactory;
+  }
+
+  /**
+   * Takes a recycler from the shared pool, or returns null if the installed factory is not a {@link
+   * PooledJsonFactory} and would not use it.
+   */
+  public static BufferRecycler acquireBufferRecycler() {
+    return sAppFactory instanceof PooledJsonFactory ? sBufferRecyclerPool.acquire() : null;
+  }
+
+  /**
+   * Returns a recycler to the shared pool once its parsers and generators are closed. Does nothing
+   * for the null returned when no recycler was taken.
+   */
+  public static void releaseBufferRecycler(BufferRecycler bufferRecycler) {
+    if (bufferRecycler != null) {
+      sBufferRecyclerPool.release(bufferRecycler);
+    }
+  }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+/**
+ * The fields of a {@link com.instagram.common.json.annotation.JsonType} to parse. Pass one to the
+ * {@code parseFromJson(JsonParser, JsonFieldMask)} method of a generated JsonHelper and every
+ * other field is skipped without building its value.
+ *
+ * <p>Masks are built from the field constants of the generated helper, e.g. {@code
+ * Data__JsonHelper.fields(Data__JsonHelper.ID, Data__JsonHelper.USER)}. The type parameter makes
+ * sure that only fields of {@code Data} end up in a mask for {@code Data}. A field holding another
+ * {@code JsonType}, or a collection of them, can carry a mask for that type too: {@code
+ * Data__JsonHelper.USER.with(User__JsonHelper.fields(User__JsonHelper.USERNAME))}. Without one,
+ * the value is parsed completely.
+ *
+ * <p>Fields inherited from a {@code JsonType} superclass are always parsed.
+ */
+public final class JsonFieldMask<T> {
+
+  /** A field of {@code T}. Generated helpers hold one constant per field. */
+  public static class Field<T> {
+    private final int mFieldIndex;
+    private final JsonFieldMask<?> mNested;
+
+    public Field(int fieldIndex) {
+      this(fieldIndex, null);
+    }
+
+    Field(int fieldIndex, JsonFieldMask<?> nested) {
+      mFieldIndex = fieldIndex;
+      mNested = nested;
+    }
+  }
+
+  /** A field of {@code T} whose value is an {@code S}, or a collection of them. */
+  public static final class ObjectField<T, S> extends Field<T> {
+    public ObjectField(int fieldIndex) {
+      super(fieldIndex);
+    }
+
+    /** Returns this field, parsing only the given fields of its value. */
+    public Field<T> with(JsonFieldMask<S> fields) {
+      return new Field<>(super.mFieldIndex, fields);
+    }
+  }
+
+  private final long[] mFields;
+  private final JsonFieldMask<?>[] mNested;
+
+  private JsonFieldMask(long[] fields, JsonFieldMask<?>[] nested) {
+    mFields = fields;
+    mNested = nested;
+  }
+
+  /** Returns a mask that includes the given fields. */
+  @SafeVarargs
+  public static <T> JsonFieldMask<T> of(Field<T>... fields) {
+    int fieldCount = 0;
+    for (Field<T> field : fields) {
+      fieldCount = Math.max(fieldCount, field.mFieldIndex + 1);
+    }
+    long[] included = new long[(fieldCount + 63) / 64];
+    JsonFieldMask<?>[] nested = new JsonFieldMask<?>[fieldCount];
+    for (Field<T> field : fields) {
+      included[field.mFieldIndex >> 6] |= 1L << field.mFieldIndex;
+      nested[field.mFieldIndex] = field.mNested;
+    }
+    return new JsonFieldMask<>(included, nested);
+  }
+
+  /**
+   * Returns true if the field with the given index is included.
+   *
+   * @param fieldIndex the index of the field in the generated helper, or {@link
+   *     JsonFieldMatcher#UNKNOWN_FIELD}.
+   */
+  public boolean includes(int fieldIndex) {
+    int word = fieldIndex >> 6;
+    return fieldIndex >= 0 && word < mFields.length && (mFields[word] & (1L << fieldIndex)) != 0;
+  }
+
+  /**
+   * Returns the mask for the value of a field, or null to parse the value completely. Generated
+   * helpers call this with the mask they were given, which may itself be null.
+   */
+  @SuppressWarnings("unchecked")
+  public static <S> JsonFieldMask<S> nested(JsonFieldMask<?> mask, int fieldIndex) {
+    if (mask == null || fieldIndex >= mask.mNested.length) {
+      return null;
+    }
+    // ObjectField.with() only accepts a mask of the type the field holds.
+    return (JsonFieldMask<S>) mask.mNested[fieldIndex];
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+
+/**
+ * Resolves json field names to the index of the field in a generated JsonHelper. The names are
+ * known when the helper is generated, so the lookup table is built once and shared by every parse.
+ *
+ * <p>When the parser exposes the name of the current field as a character buffer (see {@link
+ * JsonParser#hasTextCharacters()}), the name is matched against that buffer directly and no {@link
+ * String} is created for it. Otherwise the name the parser has already created is used.
+ *
+ * <p>Payloads of the same type almost always list their fields in the same order. {@link
+ * #match(JsonParser, int)} remembers which name followed each field the last time and checks that
+ * name first, so for a stable payload each field costs a single comparison. The remembered order
+ * is shared by every parse of the type; it is only a hint, so racing updates from other threads
+ * are harmless.
+ *
+ * <p>A matcher can also be created with a {@link JsonFieldOrderProfile}, which counts how often each
+ * name shows up and how often the guess was right. A profiled matcher does not change its guesses
+ * on every miss; the profile rebuilds them at the end of each window of matches instead, from the
+ * names that followed each field most often during the window. Payloads that alternate between a
+ * few orders then keep the most common one, where the guess of the last payload would keep
+ * flipping between them.
+ */
+public final class JsonFieldMatcher {
+
+  /** Returned when a name does not belong to any of the fields. */
+  public static final int UNKNOWN_FIELD = -1;
+
+  /** The names that can be matched. Primary names and alternate names each get a slot. */
+  private final String[] mNames;
+
+  private final char[][] mNameChars;
+  private final int[] mNameHashes;
+
+  /** The index of the field that each slot resolves to. */
+  private final int[] mFieldIndexes;
+
+  /** The primary name of each field. */
+  private final String[] mFieldNames;
+
+  /** Open addressing hash table. Each bucket holds a slot + 1, or 0 if the bucket is empty. */
+  private final int[] mBuckets;
+
+  private final int mBucketMask;
+
+  /**
+   * The slot that was matched after each field the last time, indexed by field index + 1. Entry 0
+   * holds the slot that was matched first, or after a name that did not belong to any field. -1
+   * if no name is expected.
+   */
+  private final int[] mNextSlots;
+
+  /** Null if this matcher does not profile. */
+  private final JsonFieldOrderProfile mProfile;
+
+  /**
+   * Creates a matcher for a set of fields.
+   *
+   * @param fieldNames for each field, the primary json field name followed by any alternate field
+   *     names. If the same name is listed for more than one field, the first field wins.
+   */
+  public JsonFieldMatcher(String[][] fieldNames) {
+    this(fieldNames, false);
+  }
+
+  /**
+   * Creates a matcher for a set of fields that may profile the names it matches.
+   *
+   * @param fieldNames see {@link #JsonFieldMatcher(String[][])}.
+   * @param profile whether to count the names matched in a {@link JsonFieldOrderProfile}, which
+   *     rebuilds the guesses every {@link JsonFieldOrderProfile#DEFAULT_WINDOW} matches.
+   */
+  public JsonFieldMatcher(String[][] fieldNames, boolean profile) {
+    this(fieldNames, profile ? JsonFieldOrderProfile.DEFAULT_WINDOW : 0);
+  }
+
+  /**
+   * Creates a matcher for a set of fields that profiles the names it matches.
+   *
+   * @param fieldNames see {@link #JsonFieldMatcher(String[][])}.
+   * @param profileWindow the number of matches after which the profile rebuilds the guesses, or 0
+   *     for a matcher without a profile.
+   */
+  public JsonFieldMatcher(String[][] fieldNames, int profileWindow) {
+    int nameCount = 0;
+    for (String[] names : fieldNames) {
+      nameCount += names.length;
+    }
+
+    int bucketCount = 2;
+    while (bucketCount < nameCount * 2) {
+      bucketCount <<= 1;
+    }
+    mBuckets = new int[bucketCount];
+    mBucketMask = bucketCount - 1;
+
+    mNames = new String[nameCount];
+    mNameChars = new char[nameCount][];
+    mNameHashes = new int[nameCount];
+    mFieldIndexes = new int[nameCount];
+    mFieldNames = new String[fieldNames.length];
+    mNextSlots = new int[fieldNames.length + 1];
+
+    int slot = 0;
+    for (int fieldIndex = 0; fieldIndex < fieldNames.length; fieldIndex++) {
+      mFieldNames[fieldIndex] = fieldNames[fieldIndex][0];
+      int firstSlot = slot;
+      for (String name : fieldNames[fieldIndex]) {
+        if (findSlot(name) >= 0) {
+          continue;
+        }
+        int hash = name.hashCode();
+        mNames[slot] = name;
+        mNameChars[slot] = name.toCharArray();
+        mNameHashes[slot] = hash;
+        mFieldIndexes[slot] = fieldIndex;
+
+        int bucket = spread(hash) & mBucketMask;
+        while (mBuckets[bucket] != 0) {
+          bucket = (bucket + 1) & mBucketMask;
+        }
+        mBuckets[bucket] = slot + 1;
+        slot++;
+      }
+      // until we have seen a payload, guess that the fields arrive in declaration order.
+      mNextSlots[fieldIndex] = slot > firstSlot ? firstSlot : -1;
+    }
+    // nothing is expected after the last field.
+    mNextSlots[fieldNames.length] = -1;
+    mProfile = profileWindow > 0 ? new JsonFieldOrderProfile(this, profileWindow) : null;
+  }
+
+  /** Returns the number of fields this matcher was created with. */
+  public int getFieldCount() {
+    return mFieldNames.length;
+  }
+
+  /** Returns the primary json field name of a field. */
+  public String getFieldName(int fieldIndex) {
+    return mFieldNames[fieldIndex];
+  }
+
+  /**
+   * Matches the name of the field the parser is currently positioned on.
+   *
+   * @return the index of the field, or {@link #UNKNOWN_FIELD}.
+   */
+  public int match(JsonParser jp) throws IOException {
+    return toFieldIndex(findSlot(jp));
+  }
+
+  /**
+   * Matches the name of the field the parser is currently positioned on, checking the name that
+   * followed {@code previousFieldIndex} last time before falling back to a full lookup.
+   *
+   * @param previousFieldIndex the index of the field matched before this one in the same object,
+   *     or {@link #UNKNOWN_FIELD} for the first field or a field that did not match.
+   * @return the index of the field, or {@link #UNKNOWN_FIELD}.
+   */
+  public int match(JsonParser jp, int previousFieldIndex) throws IOException {
+    int expectedSlot = mNextSlots[previousFieldIndex + 1];
+    int slot;
+    boolean expected;
+    if (expectedSlot >= 0 && matchesSlot(jp, expectedSlot)) {
+      slot = expectedSlot;
+      expected = true;
+    } else {
+      slot = findSlot(jp);
+      expected = false;
+      if (mProfile == null) {
+        mNextSlots[previousFieldIndex + 1] = slot;
+      }
+    }
+
+    if (mProfile != null) {
+      mProfile.record(previousFieldIndex, slot, expected);
+    }
+    return toFieldIndex(slot);
+  }
+
+  /**
+   * Sets the slot to check first after a field.
+   *
+   * @return whether that changed the guess.
+   */
+  boolean setExpectedSlot(int previousFieldIndex, int slot) {
+    if (mNextSlots[previousFieldIndex + 1] == slot) {
+      return false;
+    }
+    mNextSlots[previousFieldIndex + 1] = slot;
+    return true;
+  }
+
+  /** Returns the profile of this matcher, or null if it was created without profiling. */
+  public JsonFieldOrderProfile getProfile() {
+    return mProfile;
+  }
+
+  /**
+   * Matches a field name.
+   *
+   * @return the index of the field, or {@link #UNKNOWN_FIELD}.
+   */
+  public int match(String name) {
+    return toFieldIndex(findSlot(name));
+  }
+
+  /**
+   * Matches a field name held in a character buffer.
+   *
+   * @return the index of the field, or {@link #UNKNOWN_FIELD}.
+   */
+  public int match(char[] buffer, int offset, int length) {
+    return toFieldIndex(findSlot(buffer, offset, length));
+  }
+
+  /** Returns the index of the field a slot resolves to, for a slot that may be -1. */
+  int toFieldIndex(int slot) {
+    return slot < 0 ? UNKNOWN_FIELD : mFieldIndexes[slot];
+  }
+
+  private boolean matchesSlot(JsonParser jp, int slot) throws IOException {
+    if (jp.hasTextCharacters()) {
+      return regionMatches(
+          mNameChars[slot], jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+    }
+    String name = jp.getCurrentName();
+    return mNames[slot] == name || mNames[slot].equals(name);
+  }
+
+  private int findSlot(JsonParser jp) throws IOException {
+    if (jp.hasTextCharacters()) {
+      return findSlot(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+    }
+    return findSlot(jp.getCurrentName());
+  }
+
+  private int findSlot(String name) {
+    if (name == null) {
+      return -1;
+    }
+    int hash = name.hashCode();
+    for (int bucket = spread(hash) & mBucketMask; ; bucket = (bucket + 1) & mBucketMask) {
+      int slot = mBuckets[bucket] - 1;
+      if (slot < 0) {
+        return -1;
+      }
+      String candidate = mNames[slot];
+      if (candidate == name || (mNameHashes[slot] == hash && candidate.equals(name))) {
+        return slot;
+      }
+    }
+  }
+
+  private int findSlot(char[] buffer, int offset, int length) {
+    int hash = 0;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+    for (int bucket = spread(hash) & mBucketMask; ; bucket = (bucket + 1) & mBucketMask) {
+      int slot = mBuckets[bucket] - 1;
+      if (slot < 0) {
+        return -1;
+      }
+      if (mNameHashes[slot] == hash && regionMatches(mNameChars[slot], buffer, offset, length)) {
+        return slot;
+      }
+    }
+  }
+
+  private static boolean regionMatches(char[] name, char[] buffer, int offset, int length) {
+    if (name.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (name[i] != buffer[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Mixes the high bits into the low bits, which are the only ones used to pick a bucket. */
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
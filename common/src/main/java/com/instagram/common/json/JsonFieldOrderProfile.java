@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+/**
+ * Counts the field names a {@link JsonFieldMatcher} sees while parsing, and decides which name the
+ * matcher checks first after each field. Generated helpers expose their profile through {@code
+ * getFieldOrderProfile()} when the annotation processor is run with {@code
+ * -AprofileFieldOrder=true}.
+ *
+ * <p>For each field, the profile keeps a majority vote over the names that followed it: a candidate
+ * and a count, which costs two ints per field however many names there are. At the end of each
+ * window of matches, the candidates become the guesses of the matcher and the votes start over. A
+ * name that followed a field in more than half of the window's payloads always wins the vote. The
+ * guesses only change at these rebuilds, so their cost is bounded by one pass over the fields per
+ * window, and {@link #getReorderCount()} counts the rebuilds that changed a guess.
+ *
+ * <p>The counters and votes are plain fields so that recording a match stays cheap. When the same
+ * type is parsed on several threads at once, some updates may be lost and two threads may rebuild
+ * the guesses at the same time. The guesses are only hints, each written with a single store, so
+ * the worst outcome is a worse guess until the next window. The numbers are meant to be read as
+ * rates, not exact totals.
+ */
+public final class JsonFieldOrderProfile {
+
+  /** The number of matches after which the guesses are rebuilt, unless another one is given. */
+  public static final int DEFAULT_WINDOW = 4096;
+
+  private final JsonFieldMatcher mMatcher;
+  private final int mWindow;
+
+  private long mMatchCount;
+  private long mExpectedCount;
+  private long mUnknownCount;
+  private long mReorderCount;
+  private int mWindowMatchCount;
+
+  /** The number of times each field was matched. */
+  private final long[] mFieldMatches;
+
+  /**
+   * The candidate slot to follow each field, indexed like the guesses of the matcher: by the index
+   * of the previous field + 1.
+   */
+  private final int[] mCandidateSlots;
+
+  /** The votes of each candidate in the current window. */
+  private final int[] mCandidateVotes;
+
+  JsonFieldOrderProfile(JsonFieldMatcher matcher, int window) {
+    mMatcher = matcher;
+    mWindow = window;
+    mFieldMatches = new long[matcher.getFieldCount()];
+    mCandidateSlots = new int[matcher.getFieldCount() + 1];
+    mCandidateVotes = new int[matcher.getFieldCount() + 1];
+  }
+
+  /**
+   * Records a match.
+   *
+   * @param previousFieldIndex the index of the field matched before this one in the same object,
+   *     or {@link JsonFieldMatcher#UNKNOWN_FIELD}.
+   * @param slot the slot that was matched, or -1 if the name did not belong to any field.
+   * @param expected whether the name was the one the matcher guessed.
+   */
+  void record(int previousFieldIndex, int slot, boolean expected) {
+    mMatchCount++;
+    if (expected) {
+      mExpectedCount++;
+    }
+    if (slot < 0) {
+      mUnknownCount++;
+    } else {
+      mFieldMatches[mMatcher.toFieldIndex(slot)]++;
+    }
+
+    int i = previousFieldIndex + 1;
+    if (mCandidateVotes[i] == 0) {
+      mCandidateSlots[i] = slot;
+      mCandidateVotes[i] = 1;
+    } else if (mCandidateSlots[i] == slot) {
+      mCandidateVotes[i]++;
+    } else {
+      mCandidateVotes[i]--;
+    }
+
+    if (++mWindowMatchCount >= mWindow) {
+      reorder();
+    }
+  }
+
+  /** Makes the candidates the guesses of the matcher, and starts a new window. */
+  private void reorder() {
+    mWindowMatchCount = 0;
+    boolean changed = false;
+    for (int i = 0; i < mCandidateSlots.length; i++) {
+      // a field that was not matched in this window keeps its guess.
+      if (mCandidateVotes[i] > 0 && mMatcher.setExpectedSlot(i - 1, mCandidateSlots[i])) {
+        changed = true;
+      }
+      mCandidateVotes[i] = 0;
+    }
+    if (changed) {
+      mReorderCount++;
+    }
+  }
+
+  /** Returns the number of names matched, including names that did not belong to any field. */
+  public long getMatchCount() {
+    return mMatchCount;
+  }
+
+  /** Returns the number of names that were the one the matcher guessed from earlier payloads. */
+  public long getExpectedCount() {
+    return mExpectedCount;
+  }
+
+  /** Returns the fraction of names that were guessed correctly, or 0 if nothing was matched. */
+  public double getExpectedRate() {
+    return mMatchCount == 0 ? 0 : (double) mExpectedCount / mMatchCount;
+  }
+
+  /** Returns the number of names that did not belong to any field. */
+  public long getUnknownCount() {
+    return mUnknownCount;
+  }
+
+  /** Returns the number of times the guesses were rebuilt and at least one of them changed. */
+  public long getReorderCount() {
+    return mReorderCount;
+  }
+
+  /** Returns the number of matches after which the guesses are rebuilt. */
+  public int getWindow() {
+    return mWindow;
+  }
+
+  /** Returns the number of fields of the profiled type. */
+  public int getFieldCount() {
+    return mFieldMatches.length;
+  }
+
+  /** Returns the primary json field name of a field. */
+  public String getFieldName(int fieldIndex) {
+    return mMatcher.getFieldName(fieldIndex);
+  }
+
+  /** Returns the number of times a field was matched. */
+  public long getFieldMatchCount(int fieldIndex) {
+    return mFieldMatches[fieldIndex];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("JsonFieldOrderProfile{matches=");
+    sb.append(mMatchCount)
+        .append(", expected=")
+        .append(mExpectedCount)
+        .append(", unknown=")
+        .append(mUnknownCount)
+        .append(", reorders=")
+        .append(mReorderCount)
+        .append(", fields={");
+    for (int i = 0; i < mFieldMatches.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(getFieldName(i)).append('=').append(mFieldMatches[i]);
+    }
+    return sb.append("}}").toString();
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The value of a field annotated with {@code @JsonField(lazy = true)}. The generated parser keeps
+ * the json of the value and only parses it the first time {@link #get()} is called.
+ *
+ * <p>A parser that implements {@link JsonByteSource}, like {@code Utf8JsonParser}, reads from a
+ * byte array, so the bytes of the value are copied from it as they are once the value has been
+ * skipped. Jackson's streaming parser does not expose its input buffer, so from any other parser the
+ * value is copied out as compact UTF-8 json instead. That still reads every token, but builds none
+ * of the objects, lists and strings the value would otherwise turn into.
+ *
+ * <p>Any number of threads may call {@link #get()} at the same time; the value is parsed once and
+ * every caller sees the same instance. The json is dropped once it has been parsed.
+ */
+public abstract class JsonLazyValue<T> {
+
+  /** Null until the value has been parsed. */
+  private volatile T mValue;
+
+  /** The json of the value, or null once it has been parsed. Guarded by {@code this}. */
+  private byte[] mJson;
+
+  /** Copies the value the parser is positioned on, leaving the parser on its last token. */
+  protected JsonLazyValue(JsonParser jp) throws IOException {
+    if (jp instanceof JsonByteSource) {
+      JsonByteSource source = (JsonByteSource) jp;
+      int start = source.getTokenStart();
+      jp.skipChildren();
+      mJson = Arrays.copyOfRange(source.getInputBytes(), start, source.getTokenEnd());
+      return;
+    }
+    ByteArrayBuilder byteArrayBuilder =
+        new ByteArrayBuilder(JsonFactoryHolder.getAppFactory()._getBufferRecycler());
+    try {
+      JsonGenerator generator =
+          JsonFactoryHolder.getAppFactory().createGenerator(byteArrayBuilder, JsonEncoding.UTF8);
+      generator.copyCurrentStructure(jp);
+      generator.close();
+      mJson = byteArrayBuilder.toByteArray();
+    } finally {
+      byteArrayBuilder.release();
+    }
+  }
+
+  private JsonLazyValue(T value) {
+    mValue = value;
+  }
+
+  /** Creates a holder for json that has not been parsed yet, see {@link #withJson(byte[])}. */
+  protected JsonLazyValue(byte[] json) {
+    mJson = json;
+  }
+
+  /** Returns a holder for a value that is already parsed, e.g. to build a model in code. */
+  public static <T> JsonLazyValue<T> of(T value) {
+    return new JsonLazyValue<T>(value) {
+      @Override
+      protected T parse(JsonParser jp) {
+        throw new IllegalStateException("value is already parsed");
+      }
+
+      @Override
+      protected JsonLazyValue<T> withJson(byte[] json) {
+        throw new IllegalStateException("value is already parsed");
+      }
+    };
+  }
+
+  /** Parses the value the parser is positioned on. */
+  protected abstract T parse(JsonParser jp) throws IOException;
+
+  /** Returns a new holder of the same class for json that has not been parsed yet. */
+  protected abstract JsonLazyValue<T> withJson(byte[] json);
+
+  /** Returns the value, parsing it if this is the first call. */
+  public T get() throws IOException {
+    T value = mValue;
+    if (value != null) {
+      return value;
+    }
+    synchronized (this) {
+      if (mJson != null) {
+        JsonParser jp = JsonFactoryHolder.getAppFactory().createParser(mJson);
+        try {
+          jp.nextToken();
+          mValue = parse(jp);
+        } finally {
+          jp.close();
+        }
+        mJson = null;
+      }
+      return mValue;
+    }
+  }
+
+  /** Returns the value if it has been parsed, or null if it has not. */
+  public T getIfParsed() {
+    return mValue;
+  }
+
+  /**
+   * Returns a holder that parses the same json as this one on its own, or null if the value has
+   * already been parsed. The json is shared, as neither holder changes it, but the copy does not
+   * keep this holder, or the value it parses, alive.
+   */
+  public JsonLazyValue<T> copyUnparsed() {
+    byte[] json;
+    synchronized (this) {
+      json = mJson;
+    }
+    return json == null ? null : withJson(json);
+  }
+
+  /** Returns true if the value has been parsed. */
+  public synchronized boolean isParsed() {
+    return mJson == null;
+  }
+
+  /**
+   * Copies the json of the value to a generator if it has not been parsed yet, so that serializing
+   * an untouched value does not parse it.
+   *
+   * @return false if the value has already been parsed and has to be serialized instead.
+   */
+  public boolean writeUnparsedTo(JsonGenerator generator) throws IOException {
+    byte[] json;
+    synchronized (this) {
+      json = mJson;
+    }
+    if (json == null) {
+      return false;
+    }
+    JsonParser jp = JsonFactoryHolder.getAppFactory().createParser(json);
+    try {
+      jp.nextToken();
+      generator.copyCurrentStructure(jp);
+    } finally {
+      jp.close();
+    }
+    return true;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer to serialize json into, meant to be kept around and reused. Unlike {@link
+ * java.io.ByteArrayOutputStream}, it is not synchronized, closing it does nothing, and its
+ * contents can be read without copying them.
+ *
+ * <p>Pass it to a generated {@code serializeToJson(OutputStream, T)} to append the json of an
+ * object, then read it with {@link #getBuffer()} and {@link #size()} or {@link
+ * #writeTo(OutputStream)}, and call {@link #reset()} before the next object.
+ */
+public final class JsonOutputBuffer extends OutputStream {
+  private static final int DEFAULT_CAPACITY = 512;
+
+  private byte[] mBuffer;
+  private int mSize;
+
+  public JsonOutputBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public JsonOutputBuffer(int initialCapacity) {
+    mBuffer = new byte[initialCapacity];
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(mSize + 1);
+    mBuffer[mSize++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) {
+    ensureCapacity(mSize + length);
+    System.arraycopy(bytes, offset, mBuffer, mSize, length);
+    mSize += length;
+  }
+
+  /** Does nothing, so that the buffer can be reused after a generator that closes it. */
+  @Override
+  public void close() {}
+
+  /** Discards the contents, keeping the memory for the next use. */
+  public void reset() {
+    mSize = 0;
+  }
+
+  /** Returns the number of bytes written since the last {@link #reset()}. */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Returns the backing array. Only the first {@link #size()} bytes are valid, and the array is
+   * replaced when the buffer grows.
+   */
+  public byte[] getBuffer() {
+    return mBuffer;
+  }
+
+  /** Returns a copy of the contents. */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(mBuffer, mSize);
+  }
+
+  /** Writes the contents to another stream. */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(mBuffer, 0, mSize);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > mBuffer.length) {
+      mBuffer = Arrays.copyOf(mBuffer, Math.max(capacity, mBuffer.length * 2));
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.instagram.common.json.annotation.JsonField.TypeMapping;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the primitive array fields of generated helpers, e.g. {@code float[]}, without
+ * boxing the elements.
+ *
+ * <p>A parse method expects the parser to be on the start of the array, and leaves it on the end.
+ * The elements are read into a buffer that grows as needed and is trimmed to size at the end. With
+ * a {@link TypeMapping#COERCED} mapping, null elements are dropped as with lists, and other values
+ * are coerced to the element type. With a {@link TypeMapping#EXACT} mapping, an element that is
+ * null or of another json type throws, as it does for a primitive field. If the current token is
+ * not the start of an array, the methods return null and leave the parser where it is.
+ */
+public final class JsonPrimitiveArrays {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private JsonPrimitiveArrays() {}
+
+  public static int[] parseIntArray(JsonParser jp, TypeMapping mapping) throws IOException {
+    IntBuffer buffer = new IntBuffer();
+    return readArray(jp, mapping, buffer) ? buffer.toArray() : null;
+  }
+
+  public static long[] parseLongArray(JsonParser jp, TypeMapping mapping) throws IOException {
+    LongBuffer buffer = new LongBuffer();
+    return readArray(jp, mapping, buffer) ? buffer.toArray() : null;
+  }
+
+  public static float[] parseFloatArray(JsonParser jp, TypeMapping mapping) throws IOException {
+    FloatBuffer buffer = new FloatBuffer();
+    return readArray(jp, mapping, buffer) ? buffer.toArray() : null;
+  }
+
+  public static double[] parseDoubleArray(JsonParser jp, TypeMapping mapping) throws IOException {
+    DoubleBuffer buffer = new DoubleBuffer();
+    return readArray(jp, mapping, buffer) ? buffer.toArray() : null;
+  }
+
+  public static boolean[] parseBooleanArray(JsonParser jp, TypeMapping mapping)
+      throws IOException {
+    BooleanBuffer buffer = new BooleanBuffer();
+    return readArray(jp, mapping, buffer) ? buffer.toArray() : null;
+  }
+
+  /**
+   * The token loop shared by the parse methods. Returns false if the parser is not on the start of
+   * an array.
+   */
+  private static boolean readArray(JsonParser jp, TypeMapping mapping, ElementBuffer buffer)
+      throws IOException {
+    if (jp.getCurrentToken() != JsonToken.START_ARRAY) {
+      return false;
+    }
+    boolean exact = mapping == TypeMapping.EXACT;
+    JsonToken token;
+    while ((token = jp.nextToken()) != JsonToken.END_ARRAY) {
+      if (exact && !buffer.accepts(token)) {
+        throw new JsonParseException(
+            "Unexpected " + token + " in an array of " + buffer.getElementType(),
+            jp.getCurrentLocation());
+      }
+      if (token == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      buffer.add(jp);
+      jp.skipChildren();
+    }
+    return true;
+  }
+
+  /** Grows a primitive array as elements are added, so the loop never boxes them. */
+  private abstract static class ElementBuffer {
+    int mSize;
+
+    /** Whether an {@link TypeMapping#EXACT} mapping reads an element on this token. */
+    abstract boolean accepts(JsonToken token);
+
+    /** Appends the current value of the parser, coerced to the element type. */
+    abstract void add(JsonParser jp) throws IOException;
+
+    abstract String getElementType();
+  }
+
+  private static final class IntBuffer extends ElementBuffer {
+    private int[] mValues = new int[INITIAL_CAPACITY];
+
+    @Override
+    boolean accepts(JsonToken token) {
+      return token == JsonToken.VALUE_NUMBER_INT;
+    }
+
+    @Override
+    void add(JsonParser jp) throws IOException {
+      if (mSize == mValues.length) {
+        mValues = Arrays.copyOf(mValues, mSize * 2);
+      }
+      mValues[mSize++] = jp.getValueAsInt();
+    }
+
+    @Override
+    String getElementType() {
+      return "int";
+    }
+
+    int[] toArray() {
+      return mSize == mValues.length ? mValues : Arrays.copyOf(mValues, mSize);
+    }
+  }
+
+  private static final class LongBuffer extends ElementBuffer {
+    private long[] mValues = new long[INITIAL_CAPACITY];
+
+    @Override
+    boolean accepts(JsonToken token) {
+      return token == JsonToken.VALUE_NUMBER_INT;
+    }
+
+    @Override
+    void add(JsonParser jp) throws IOException {
+      if (mSize == mValues.length) {
+        mValues = Arrays.copyOf(mValues, mSize * 2);
+      }
+      mValues[mSize++] = jp.getValueAsLong();
+    }
+
+    @Override
+    String getElementType() {
+      return "long";
+    }
+
+    long[] toArray() {
+      return mSize == mValues.length ? mValues : Arrays.copyOf(mValues, mSize);
+    }
+  }
+
+  private static final class FloatBuffer extends ElementBuffer {
+    private float[] mValues = new float[INITIAL_CAPACITY];
+
+    @Override
+    boolean accepts(JsonToken token) {
+      return token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT;
+    }
+
+    @Override
+    void add(JsonParser jp) throws IOException {
+      if (mSize == mValues.length) {
+        mValues = Arrays.copyOf(mValues, mSize * 2);
+      }
+      mValues[mSize++] = (float) jp.getValueAsDouble();
+    }
+
+    @Override
+    String getElementType() {
+      return "float";
+    }
+
+    float[] toArray() {
+      return mSize == mValues.length ? mValues : Arrays.copyOf(mValues, mSize);
+    }
+  }
+
+  private static final class DoubleBuffer extends ElementBuffer {
+    private double[] mValues = new double[INITIAL_CAPACITY];
+
+    @Override
+    boolean accepts(JsonToken token) {
+      return token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT;
+    }
+
+    @Override
+    void add(JsonParser jp) throws IOException {
+      if (mSize == mValues.length) {
+        mValues = Arrays.copyOf(mValues, mSize * 2);
+      }
+      mValues[mSize++] = jp.getValueAsDouble();
+    }
+
+    @Override
+    String getElementType() {
+      return "double";
+    }
+
+    double[] toArray() {
+      return mSize == mValues.length ? mValues : Arrays.copyOf(mValues, mSize);
+    }
+  }
+
+  private static final class BooleanBuffer extends ElementBuffer {
+    private boolean[] mValues = new boolean[INITIAL_CAPACITY];
+
+    @Override
+    boolean accepts(JsonToken token) {
+      return token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE;
+    }
+
+    @Override
+    void add(JsonParser jp) throws IOException {
+      if (mSize == mValues.length) {
+        mValues = Arrays.copyOf(mValues, mSize * 2);
+      }
+      mValues[mSize++] = jp.getValueAsBoolean();
+    }
+
+    @Override
+    String getElementType() {
+      return "boolean";
+    }
+
+    boolean[] toArray() {
+      return mSize == mValues.length ? mValues : Arrays.copyOf(mValues, mSize);
+    }
+  }
+
+  public static void write(JsonGenerator generator, int[] values) throws IOException {
+    generator.writeStartArray();
+    for (int value : values) {
+      generator.writeNumber(value);
+    }
+    generator.writeEndArray();
+  }
+
+  public static void write(JsonGenerator generator, long[] values) throws IOException {
+    generator.writeStartArray();
+    for (long value : values) {
+      generator.writeNumber(value);
+    }
+    generator.writeEndArray();
+  }
+
+  public static void write(JsonGenerator generator, float[] values) throws IOException {
+    generator.writeStartArray();
+    for (float value : values) {
+      generator.writeNumber(value);
+    }
+    generator.writeEndArray();
+  }
+
+  public static void write(JsonGenerator generator, double[] values) throws IOException {
+    generator.writeStartArray();
+    for (double value : values) {
+      generator.writeNumber(value);
+    }
+    generator.writeEndArray();
+  }
+
+  public static void write(JsonGenerator generator, boolean[] values) throws IOException {
+    generator.writeStartArray();
+    for (boolean value : values) {
+      generator.writeBoolean(value);
+    }
+    generator.writeEndArray();
+  }
+}
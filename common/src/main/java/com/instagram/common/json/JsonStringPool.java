@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+
+/**
+ * A bounded pool of strings that generated parsers read the values of {@code @JsonField(intern =
+ * true)} fields through, so that a value that repeats across a response is kept in memory once.
+ *
+ * <p>A value is looked up in the parser's character buffer before a string is created for it, so
+ * a value that is already pooled costs no allocation. The pool has a fixed number of slots, picked
+ * by the hash of the value; a new value replaces whichever value held its slot before. Values
+ * longer than the maximum length are never pooled.
+ *
+ * <p>The memory a pool holds is bounded by its size and maximum length: at most {@code size}
+ * strings of at most {@code maxLength} characters, plus the slot array. Counting two bytes a
+ * character and about 40 bytes of object headers a string, the default shared pool of 4096 values
+ * of up to 64 characters keeps about 700 KB alive at worst, and usually far less, since most
+ * pooled values are short. Install a pool of another size with {@link #setShared}, or turn
+ * interning off for the whole app with {@link #setEnabled}; the parsers then create a new string
+ * for every value, as if the fields were not interned.
+ *
+ * <p>The pool is safe to use from several threads without locking. The slots are read and written
+ * without synchronization, which is a data race, but a benign one: a reference write is atomic, and
+ * the fields of a {@link String} are final, so a thread that reads a slot sees either null or a
+ * complete string that another thread stored, never a partly built one. A racing write can replace
+ * a value another thread has just pooled; the only cost is that a later lookup misses and creates
+ * the string again. The cached {@link String#hashCode} is racy in the same benign way.
+ */
+public final class JsonStringPool {
+  private static final int DEFAULT_SIZE = 4096;
+  private static final int DEFAULT_MAX_LENGTH = 64;
+
+  private static volatile JsonStringPool sShared =
+      new JsonStringPool(DEFAULT_SIZE, DEFAULT_MAX_LENGTH);
+
+  private static volatile boolean sEnabled = true;
+
+  private final String[] mSlots;
+  private final int mMask;
+  private final int mMaxLength;
+
+  /**
+   * @param size the number of values the pool can hold, rounded up to a power of two.
+   * @param maxLength the length of the longest value to pool.
+   */
+  public JsonStringPool(int size, int maxLength) {
+    int slots = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+    mSlots = new String[slots];
+    mMask = slots - 1;
+    mMaxLength = maxLength;
+  }
+
+  /** Returns the pool that generated parsers use. */
+  public static JsonStringPool getShared() {
+    return sShared;
+  }
+
+  /** Installs the pool that generated parsers use from now on, e.g. one of another size. */
+  public static void setShared(JsonStringPool shared) {
+    if (shared == null) {
+      throw new NullPointerException("shared");
+    }
+    sShared = shared;
+  }
+
+  /** Returns true if generated parsers read interned fields through the shared pool. */
+  public static boolean isEnabled() {
+    return sEnabled;
+  }
+
+  /**
+   * Turns interning on or off for the whole app. While it is off, generated parsers create a new
+   * string for every value of an interned field, and the shared pool is left as it is.
+   */
+  public static void setEnabled(boolean enabled) {
+    sEnabled = enabled;
+  }
+
+  /** Returns the text of the current token, from the shared pool unless interning is off. */
+  public static String getText(JsonParser jp) throws IOException {
+    return sEnabled ? sShared.get(jp) : jp.getText();
+  }
+
+  /**
+   * Returns the text of the current token, taking it from the pool if it is there. Only string
+   * values are pooled.
+   */
+  public String get(JsonParser jp) throws IOException {
+    if (jp.getCurrentToken() != JsonToken.VALUE_STRING) {
+      return jp.getText();
+    }
+    int length = jp.getTextLength();
+    if (length > mMaxLength) {
+      return jp.getText();
+    }
+    char[] chars = jp.getTextCharacters();
+    int offset = jp.getTextOffset();
+    // the same hash as String.hashCode(), which the pooled string caches.
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    int slot = (hash ^ (hash >>> 16)) & mMask;
+    String pooled = mSlots[slot];
+    if (pooled != null && pooled.hashCode() == hash && matches(pooled, chars, offset, length)) {
+      return pooled;
+    }
+    String value = new String(chars, offset, length);
+    mSlots[slot] = value;
+    return value;
+  }
+
+  private static boolean matches(String pooled, char[] chars, int offset, int length) {
+    if (pooled.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (pooled.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A structural index over a UTF-8 json document, built in a single pass. Every value, object key
+ * and container end becomes one entry on a tape. Objects and arrays point at their end entry, so a
+ * value of any size is skipped in one step.
+ *
+ * <p>Nothing is decoded while the tape is built. Strings and numbers are only decoded when they
+ * are read, so reading a few fields of a large document costs little more than finding its
+ * structure. Generated JsonHelpers expose a {@code View} class that reads the fields of their type
+ * from a tape.
+ *
+ * <p>The tape keeps a reference to the document, which must not be modified while the tape is in
+ * use. A tape is immutable once built and can be read from several threads.
+ */
+public final class JsonTape {
+
+  /** The type of an index that does not point at a value, e.g. a field that is not present. */
+  public static final int NONE = 0;
+
+  public static final int OBJECT = 1;
+  public static final int ARRAY = 2;
+  public static final int STRING = 3;
+  public static final int NUMBER = 4;
+  public static final int TRUE = 5;
+  public static final int FALSE = 6;
+  public static final int NULL = 7;
+
+  /** The entry that closes an object or an array. */
+  public static final int END = 8;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+  private final byte[] mJson;
+  private final int mEnd;
+
+  private byte[] mTypes;
+
+  /**
+   * For an object or an array, the index of its end entry. For anything else, the offset of its
+   * first byte in the document.
+   */
+  private int[] mValues;
+
+  private int mSize;
+
+  private JsonTape(byte[] json, int offset, int length) {
+    mJson = json;
+    mEnd = offset + length;
+    int capacity = Math.max(16, length / 4);
+    mTypes = new byte[capacity];
+    mValues = new int[capacity];
+  }
+
+  /** Builds the tape for a document. */
+  public static JsonTape build(byte[] json) throws JsonParseException {
+    return build(json, 0, json.length);
+  }
+
+  /** Builds the tape for a document held in part of an array. */
+  public static JsonTape build(byte[] json, int offset, int length) throws JsonParseException {
+    JsonTape tape = new JsonTape(json, offset, length);
+    tape.scan(offset);
+    return tape;
+  }
+
+  /** Returns the UTF-8 encoding of a field name, to pass to {@link #getField}. */
+  public static byte[] utf8(String name) {
+    return name.getBytes(UTF_8);
+  }
+
+  /** Returns the index of the root value. */
+  public int getRoot() {
+    return 0;
+  }
+
+  /** Returns the type of the entry at an index, or {@link #NONE} if the index is negative. */
+  public int getType(int index) {
+    return index < 0 ? NONE : mTypes[index];
+  }
+
+  /** Returns whether the entry at an index is a string, a number, {@code true} or {@code false}. */
+  public boolean isScalar(int index) {
+    int type = getType(index);
+    return type >= STRING && type <= FALSE;
+  }
+
+  /** Returns the index of the entry after the value at an index, skipping any children. */
+  public int skip(int index) {
+    int type = mTypes[index];
+    return (type == OBJECT || type == ARRAY) ? mValues[index] + 1 : index + 1;
+  }
+
+  /**
+   * Returns the index of the value of the first field of an object that has one of the given
+   * names, or -1 if there is none or the index does not point at an object.
+   */
+  public int getField(int objectIndex, byte[][] names) {
+    if (getType(objectIndex) != OBJECT) {
+      return -1;
+    }
+    int end = mValues[objectIndex];
+    for (int key = objectIndex + 1; key < end; key = skip(key + 1)) {
+      for (byte[] name : names) {
+        if (keyEquals(mValues[key], name)) {
+          return key + 1;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the string at an index, or null if it is not a string. */
+  public String getString(int index) {
+    if (getType(index) != STRING) {
+      return null;
+    }
+    int start = mValues[index] + 1;
+    boolean ascii = true;
+    int end = start;
+    // most strings are short and plain ascii, which can be copied without decoding.
+    for (byte b = mJson[end]; b != '"'; b = mJson[++end]) {
+      if (b == '\\') {
+        return decodeEscaped(start);
+      }
+      ascii &= b >= 0;
+    }
+    return ascii
+        ? new String(mJson, start, end - start, ISO_8859_1)
+        : new String(mJson, start, end - start, UTF_8);
+  }
+
+  /**
+   * Returns the number at an index as a long, or 0 if it is not a number. A fraction is dropped,
+   * and an integer beyond the range of a long is clamped to it.
+   */
+  public long getLong(int index) {
+    if (getType(index) != NUMBER) {
+      return 0;
+    }
+    int position = mValues[index];
+    boolean negative = mJson[position] == '-';
+    if (negative) {
+      position++;
+    }
+    // accumulated as a negative number, which has room for Long.MIN_VALUE.
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long value = 0;
+    boolean overflow = false;
+    for (; position < mEnd; position++) {
+      int digit = mJson[position] - '0';
+      if (digit < 0 || digit > 9) {
+        break;
+      }
+      if (value < limit / 10 || value * 10 < limit + digit) {
+        overflow = true;
+      } else if (!overflow) {
+        value = value * 10 - digit;
+      }
+    }
+    if (position < mEnd && isNumberByte(mJson[position])) {
+      // a fraction or an exponent.
+      return (long) getDouble(index);
+    }
+    if (overflow) {
+      return negative ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+    return negative ? value : -value;
+  }
+
+  /** Like {@link #getLong}, clamped to the range of an int. */
+  public int getInt(int index) {
+    return clampToInt(getLong(index));
+  }
+
+  /** Returns the number at an index as a double, or 0 if it is not a number. */
+  public double getDouble(int index) {
+    if (getType(index) != NUMBER) {
+      return 0;
+    }
+    return Double.parseDouble(getNumberText(index));
+  }
+
+  /**
+   * Returns the value at an index as a long the way {@code JsonParser.getValueAsLong()} coerces
+   * it: a string is parsed, {@code true} reads as 1, and anything else that is not a number reads
+   * as 0.
+   */
+  public long getValueAsLong(int index) {
+    switch (getType(index)) {
+      case NUMBER:
+        return getLong(index);
+      case STRING:
+        String text = getString(index).trim();
+        try {
+          return Long.parseLong(text);
+        } catch (NumberFormatException ex) {
+          return (long) parseDouble(text);
+        }
+      case TRUE:
+        return 1;
+      default:
+        return 0;
+    }
+  }
+
+  /** Like {@link #getValueAsLong}, clamped to the range of an int. */
+  public int getValueAsInt(int index) {
+    return clampToInt(getValueAsLong(index));
+  }
+
+  /** Returns the value at an index as a double, coerced like {@link #getValueAsLong}. */
+  public double getValueAsDouble(int index) {
+    switch (getType(index)) {
+      case NUMBER:
+        return getDouble(index);
+      case STRING:
+        return parseDouble(getString(index).trim());
+      case TRUE:
+        return 1;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Returns the value at an index as a boolean the way {@code JsonParser.getValueAsBoolean()}
+   * coerces it: a non-zero integer and the string {@code "true"} read as true.
+   */
+  public boolean getValueAsBoolean(int index) {
+    switch (getType(index)) {
+      case TRUE:
+        return true;
+      case NUMBER:
+        return getLong(index) != 0;
+      case STRING:
+        return "true".equals(getString(index).trim());
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the value at an index as a string the way {@code JsonParser.getText()} reads a
+   * scalar, or null if it is null, an object or an array.
+   */
+  public String getValueAsString(int index) {
+    switch (getType(index)) {
+      case STRING:
+        return getString(index);
+      case NUMBER:
+        return getNumberText(index);
+      case TRUE:
+        return "true";
+      case FALSE:
+        return "false";
+      default:
+        return null;
+    }
+  }
+
+  private String getNumberText(int index) {
+    int start = mValues[index];
+    int end = start;
+    while (end < mEnd && isNumberByte(mJson[end])) {
+      end++;
+    }
+    return new String(mJson, start, end - start, ISO_8859_1);
+  }
+
+  private static int clampToInt(long value) {
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+  }
+
+  private static double parseDouble(String text) {
+    try {
+      return Double.parseDouble(text);
+    } catch (NumberFormatException ex) {
+      return 0;
+    }
+  }
+
+  private boolean keyEquals(int quote, byte[] name) {
+    int start = quote + 1;
+    for (int i = 0; i <= name.length; i++) {
+      byte b = mJson[start + i];
+      if (b == '\\') {
+        return Arrays.equals(utf8(decodeEscaped(start)), name);
+      } else if (b == '"') {
+        return i == name.length;
+      } else if (i == name.length || b != name[i]) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private String decodeEscaped(int start) {
+    StringBuilder sb = new StringBuilder();
+    int segment = start;
+    int position = start;
+    while (mJson[position] != '"') {
+      if (mJson[position] != '\\') {
+        position++;
+        continue;
+      }
+      sb.append(new String(mJson, segment, position - segment, UTF_8));
+      byte escaped = mJson[position + 1];
+      position += 2;
+      switch (escaped) {
+        case 'b':
+          sb.append('\b');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'u':
+          sb.append((char) Integer.parseInt(new String(mJson, position, 4, ISO_8859_1), 16));
+          position += 4;
+          break;
+        default:
+          sb.append((char) escaped);
+          break;
+      }
+      segment = position;
+    }
+    return sb.append(new String(mJson, segment, position - segment, UTF_8)).toString();
+  }
+
+  private void scan(int position) throws JsonParseException {
+    int[] open = new int[16];
+    int depth = 0;
+    boolean needValue = true;
+    while (true) {
+      position = skipWhitespace(position);
+      if (!needValue) {
+        if (depth == 0) {
+          if (position != mEnd) {
+            throw error("unexpected content after the root value", position);
+          }
+          return;
+        }
+        if (position >= mEnd) {
+          throw error("unexpected end of input", position);
+        }
+        byte c = mJson[position++];
+        int container = open[depth - 1];
+        if (c == ',') {
+          needValue = true;
+          if (mTypes[container] == OBJECT) {
+            position = scanKey(skipWhitespace(position));
+          }
+        } else if ((c == '}' && mTypes[container] == OBJECT)
+            || (c == ']' && mTypes[container] == ARRAY)) {
+          mValues[container] = add(END, position - 1);
+          depth--;
+        } else {
+          throw error("unexpected character '" + (char) c + "'", position - 1);
+        }
+        continue;
+      }
+
+      if (position >= mEnd) {
+        throw error("unexpected end of input", position);
+      }
+      byte c = mJson[position];
+      if (c == '{' || c == '[') {
+        if (depth == open.length) {
+          open = Arrays.copyOf(open, depth * 2);
+        }
+        int type = c == '{' ? OBJECT : ARRAY;
+        open[depth++] = add(type, position);
+        position = skipWhitespace(position + 1);
+        if (position < mEnd && mJson[position] == (c == '{' ? '}' : ']')) {
+          mValues[open[--depth]] = add(END, position);
+          position++;
+          needValue = false;
+        } else if (type == OBJECT) {
+          position = scanKey(position);
+        }
+      } else if (c == '"') {
+        add(STRING, position);
+        position = skipString(position);
+        needValue = false;
+      } else if (c == 't') {
+        position = scanLiteral(TRUE, "true", position);
+        needValue = false;
+      } else if (c == 'f') {
+        position = scanLiteral(FALSE, "false", position);
+        needValue = false;
+      } else if (c == 'n') {
+        position = scanLiteral(NULL, "null", position);
+        needValue = false;
+      } else if (c == '-' || (c >= '0' && c <= '9')) {
+        add(NUMBER, position);
+        position = scanNumber(position);
+        needValue = false;
+      } else {
+        throw error("unexpected character '" + (char) c + "'", position);
+      }
+    }
+  }
+
+  /** Adds the key at a position and returns the position after its colon. */
+  private int scanKey(int position) throws JsonParseException {
+    if (position >= mEnd || mJson[position] != '"') {
+      throw error("expected a field name", position);
+    }
+    add(STRING, position);
+    position = skipWhitespace(skipString(position));
+    if (position >= mEnd || mJson[position] != ':') {
+      throw error("expected ':'", position);
+    }
+    return position + 1;
+  }
+
+  /**
+   * Checks that a number starting at a position follows the json grammar, so that it can be
+   * decoded later, and returns the position after it.
+   */
+  private int scanNumber(int position) throws JsonParseException {
+    int start = position;
+    if (mJson[position] == '-') {
+      position++;
+    }
+    if (position < mEnd && mJson[position] == '0') {
+      position++;
+    } else {
+      position = scanDigits(start, position);
+    }
+    if (position < mEnd && mJson[position] == '.') {
+      position = scanDigits(start, position + 1);
+    }
+    if (position < mEnd && (mJson[position] == 'e' || mJson[position] == 'E')) {
+      position++;
+      if (position < mEnd && (mJson[position] == '+' || mJson[position] == '-')) {
+        position++;
+      }
+      position = scanDigits(start, position);
+    }
+    return position;
+  }
+
+  /** Skips one or more digits of the number starting at {@code start}. */
+  private int scanDigits(int start, int position) throws JsonParseException {
+    int digits = position;
+    while (position < mEnd && mJson[position] >= '0' && mJson[position] <= '9') {
+      position++;
+    }
+    if (position == digits) {
+      throw error("malformed number", start);
+    }
+    return position;
+  }
+
+  private int scanLiteral(int type, String literal, int position) throws JsonParseException {
+    if (position + literal.length() > mEnd) {
+      throw error("unexpected end of input", position);
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      if (mJson[position + i] != literal.charAt(i)) {
+        throw error("expected '" + literal + "'", position);
+      }
+    }
+    add(type, position);
+    return position + literal.length();
+  }
+
+  /** Returns the position after the closing quote of the string at a position. */
+  private int skipString(int position) throws JsonParseException {
+    for (int i = position + 1; i < mEnd; i++) {
+      byte b = mJson[i];
+      if (b == '"') {
+        return i + 1;
+      } else if (b == '\\') {
+        i++;
+      }
+    }
+    throw error("unterminated string", position);
+  }
+
+  private int skipWhitespace(int position) {
+    while (position < mEnd) {
+      byte b = mJson[position];
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      position++;
+    }
+    return position;
+  }
+
+  private int add(int type, int value) {
+    if (mSize == mTypes.length) {
+      mTypes = Arrays.copyOf(mTypes, mSize * 2);
+      mValues = Arrays.copyOf(mValues, mSize * 2);
+    }
+    mTypes[mSize] = (byte) type;
+    mValues[mSize] = value;
+    return mSize++;
+  }
+
+  private static boolean isNumberByte(byte b) {
+    return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+  }
+
+  private static JsonParseException error(String message, int position) {
+    return new JsonParseException(message + " at offset " + position, JsonLocation.NA);
+  }
+}
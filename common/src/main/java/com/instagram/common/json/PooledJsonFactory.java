@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+
+/**
+ * A {@link JsonFactory} that can also create parsers and generators with a given {@link
+ * BufferRecycler}, e.g. one taken from a {@link BufferRecyclerPool}, instead of the one jackson
+ * keeps for the current thread. Everything else behaves like a plain {@link JsonFactory}.
+ */
+public class PooledJsonFactory extends JsonFactory {
+  private static final long serialVersionUID = 1L;
+
+  public PooledJsonFactory() {}
+
+  /** Copies the configuration of another factory, as {@link #copy()} does. */
+  protected PooledJsonFactory(PooledJsonFactory src, ObjectCodec codec) {
+    super(src, codec);
+  }
+
+  /** Returns a copy that is also a {@link PooledJsonFactory}, without the codec of this one. */
+  @Override
+  public PooledJsonFactory copy() {
+    _checkInvalidCopy(PooledJsonFactory.class);
+    return new PooledJsonFactory(this, null);
+  }
+
+  /** Keeps the class of a deserialized factory, which jackson would turn into a plain one. */
+  @Override
+  protected Object readResolve() {
+    return new PooledJsonFactory(this, _objectCodec);
+  }
+
+  /** Creates a parser for a string that takes its buffers from the given recycler. */
+  public JsonParser createParser(String content, BufferRecycler bufferRecycler)
+      throws IOException {
+    Reader reader = new StringReader(content);
+    IOContext ctxt = new IOContext(bufferRecycler, reader, true);
+    if (_inputDecorator != null) {
+      reader = _inputDecorator.decorate(ctxt, reader);
+    }
+    return _createParser(reader, ctxt);
+  }
+
+  /** Creates a generator for a writer that takes its buffers from the given recycler. */
+  public JsonGenerator createGenerator(Writer writer, BufferRecycler bufferRecycler)
+      throws IOException {
+    IOContext ctxt = new IOContext(bufferRecycler, writer, false);
+    if (_outputDecorator != null) {
+      writer = _outputDecorator.decorate(ctxt, writer);
+    }
+    return _createGenerator(writer, ctxt);
+  }
+
+  /** Creates a UTF-8 generator for a stream that takes its buffers from the given recycler. */
+  public JsonGenerator createGenerator(OutputStream outputStream, BufferRecycler bufferRecycler)
+      throws IOException {
+    IOContext ctxt = new IOContext(bufferRecycler, outputStream, false);
+    ctxt.setEncoding(JsonEncoding.UTF8);
+    if (_outputDecorator != null) {
+      outputStream = _outputDecorator.decorate(ctxt, outputStream);
+    }
+    return _createUTF8Generator(outputStream, ctxt);
+  }
+}
@@ -191,4 +191,25 @@ public @interface JsonField {
    * an exception rather than the norm.
    */
   String serializeCodeFormatter() default "";
+
+  /**
+   * Defers parsing the value until it is first read. The field must be declared as a {@link
+   * com.instagram.common.json.JsonLazyValue} of a {@link JsonType}, e.g. {@code
+   * JsonLazyValue<Comments>}. The generated parser keeps the json of the value instead of parsing
+   * it, and {@link com.instagram.common.json.JsonLazyValue#get()} parses it on first access.
+   *
+   * <p>Lazy fields are not supported in strict mode, for collections, or together with custom
+   * formatters.
+   */
+  boolean lazy() default false;
+
+  /**
+   * Reads the value through {@link com.instagram.common.json.JsonStringPool}, so that values that
+   * repeat across many objects, like a type or a username, share one string. The value is matched
+   * against the pool before a string is allocated for it.
+   *
+   * <p>Only supported for {@code String} fields and collections of them, without a custom {@link
+   * #valueExtractFormatter()}.
+   */
+  boolean intern() default false;
 }
@@ -34,7 +34,7 @@ class Data {
   @JsonField(fieldName = "tags")
   List<String> tags;
 
-  @JsonField(fieldName = "type")
+  @JsonField(fieldName = "type", intern = true)
   String type;
 
   @JsonField(fieldName = "location")
@@ -43,7 +43,7 @@ class Data {
   @JsonField(fieldName = "comments")
   CommentMeta comments;
 
-  @JsonField(fieldName = "filter")
+  @JsonField(fieldName = "filter", intern = true)
   String filter;
 
   @JsonField(fieldName = "created_time")
@@ -160,7 +160,7 @@ class Comment {
 
 @JsonType
 class User {
-  @JsonField(fieldName = "username")
+  @JsonField(fieldName = "username", intern = true)
   String username;
 
   @JsonField(fieldName = "website")
@@ -18,4 +18,8 @@ public class IgModelWorker {
   public IgListOfModels parseListFromString(String input) throws IOException {
     return IgListOfModels__JsonHelper.parseFromJson(input);
   }
+
+  public String serializeToString(IgModelRequest model) throws IOException {
+    return IgModelRequest__JsonHelper.serializeToJson(model);
+  }
 }
@@ -21,4 +21,8 @@ public class OmModelWorker {
   public OmListOfModels parseListFromString(String input) throws IOException {
     return sObjectMapper.readValue(input, OmListOfModels.class);
   }
+
+  public String serializeToString(OmModelRequest model) throws IOException {
+    return sObjectMapper.writeValueAsString(model);
+  }
 }
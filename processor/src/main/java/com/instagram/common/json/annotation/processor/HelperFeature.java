@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+/**
+ * Optional families of methods a generated helper can have on top of {@code parseFromJson} and
+ * {@code serializeToJson}. None of them is generated unless its processor option is set to {@code
+ * true}, so a helper only grows by what the app uses.
+ */
+enum HelperFeature {
+  /** The {@code view} methods and the nested {@code View} class reading a {@code JsonTape}. */
+  VIEWS("generateViews"),
+
+  /**
+   * The {@code parseFromJson} overloads reading a {@code byte[]}, an {@code InputStream} or a
+   * {@code Reader}.
+   */
+  STREAM_PARSERS("generateStreamParsers"),
+
+  /**
+   * {@code serializeToBytes} and the {@code serializeToJson} overload writing to an {@code
+   * OutputStream}.
+   */
+  STREAM_SERIALIZERS("generateStreamSerializers"),
+
+  /** {@code forEachInArray}, {@code iterateArray} and the iterator class behind it. */
+  ARRAY_ITERATORS("generateArrayIterators"),
+
+  /** {@code readJsonLines} and {@code writeJsonLines}, for newline-delimited json. */
+  JSON_LINES("generateJsonLines"),
+
+  /**
+   * The {@code parseFromJson} and {@code serializeToJson} overloads taking the {@code JsonFactory}
+   * to use instead of the installed one.
+   */
+  FACTORY_OVERLOADS("generateFactoryOverloads"),
+
+  /** The {@code parseFromJson} and {@code serializeToJson} overloads reusing a {@code JsonCodec}. */
+  CODEC_METHODS("generateCodecMethods"),
+
+  /** {@code deepCopy} and the {@code copyFields} method it is built on. */
+  DEEP_COPY("generateDeepCopy");
+
+  private final String mOptionName;
+
+  HelperFeature(String optionName) {
+    mOptionName = optionName;
+  }
+
+  /** The name of the processor option, without the {@code -A}, that turns this feature on. */
+  String getOptionName() {
+    return mOptionName;
+  }
+}
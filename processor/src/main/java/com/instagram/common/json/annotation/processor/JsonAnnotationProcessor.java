@@ -17,7 +17,9 @@ import static javax.lang.model.element.ElementKind.PARAMETER;
 import static javax.lang.model.element.Modifier.ABSTRACT;
 import static javax.lang.model.element.Modifier.PRIVATE;
 
+import com.instagram.common.json.JacksonBackend;
 import com.instagram.common.json.JsonAnnotationProcessorConstants;
+import com.instagram.common.json.JsonLazyValue;
 import com.instagram.common.json.annotation.FromJson;
 import com.instagram.common.json.annotation.JsonAdapter;
 import com.instagram.common.json.annotation.JsonField;
@@ -26,15 +28,18 @@ import com.instagram.common.json.annotation.ToJson;
 import com.instagram.common.json.annotation.util.Console;
 import com.instagram.common.json.annotation.util.ProcessorClassData;
 import com.instagram.common.json.annotation.util.TypeUtils;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -47,6 +52,7 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
@@ -58,8 +64,25 @@ import javax.tools.JavaFileObject;
  * This annotation processor is run at compile time to find classes annotated with {@link JsonType}.
  * Deserializers are generated for such classes.
  */
-@SupportedOptions({"generateSerializers"})
+@SupportedOptions({
+  "generateSerializers",
+  "profileFieldOrder",
+  "payloadProfileDir",
+  "jsonBackend",
+  "generateViews",
+  "generateStreamParsers",
+  "generateStreamSerializers",
+  "generateArrayIterators",
+  "generateJsonLines",
+  "generateFactoryOverloads",
+  "generateCodecMethods",
+  "generateDeepCopy"
+})
 public class JsonAnnotationProcessor extends AbstractProcessor {
+  /** The element types of the arrays that {@code JsonPrimitiveArrays} reads and writes. */
+  private static final Set<TypeKind> sPrimitiveArrayTypes =
+      EnumSet.of(TypeKind.INT, TypeKind.LONG, TypeKind.FLOAT, TypeKind.DOUBLE, TypeKind.BOOLEAN);
+
   private Messager mMessager;
   private Elements mElements;
   private Types mTypes;
@@ -68,6 +91,10 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
 
   private boolean mGenerateSerializers;
   private boolean mOmitSomeMethodBodies;
+  private boolean mProfileFieldOrder;
+  private @Nullable File mPayloadProfileDir;
+  private String mJsonBackendClassName;
+  private Set<HelperFeature> mHelperFeatures;
 
   private static class State {
     private Map<TypeElement, JsonParserClassData> mClassElementToInjectorMap;
@@ -93,6 +120,21 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
     mGenerateSerializers = toBooleanDefaultTrue(options.get("generateSerializers"));
     mOmitSomeMethodBodies =
         toBooleanDefaultFalse(options.get("com.facebook.buck.java.generating_abi"));
+    mProfileFieldOrder = toBooleanDefaultFalse(options.get("profileFieldOrder"));
+    String payloadProfileDir = options.get("payloadProfileDir");
+    mPayloadProfileDir = payloadProfileDir == null ? null : new File(payloadProfileDir);
+    String jsonBackend = options.get("jsonBackend");
+    mJsonBackendClassName =
+        jsonBackend == null ? JacksonBackend.class.getName() : jsonBackend.trim();
+    if (mElements.getTypeElement(mJsonBackendClassName) == null) {
+      error("jsonBackend %s is not a class on the compile classpath", mJsonBackendClassName);
+    }
+    mHelperFeatures = EnumSet.noneOf(HelperFeature.class);
+    for (HelperFeature feature : HelperFeature.values()) {
+      if (toBooleanDefaultFalse(options.get(feature.getOptionName()))) {
+        mHelperFeatures.add(feature);
+      }
+    }
   }
 
   private boolean toBooleanDefaultTrue(String value) {
@@ -235,24 +277,14 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
 
       if (!mOmitSomeMethodBodies) {
         // Superclass info is only needed if we're generating method bodies.
-        TypeMirror superclass = typeElement.getSuperclass();
-        // walk up the superclass hierarchy until we find another class we know about.
-        while (superclass.getKind() != TypeKind.NONE) {
-          TypeElement superclassElement = (TypeElement) mTypes.asElement(superclass);
-
-          if (superclassElement.getAnnotation(JsonType.class) != null) {
-            String superclassPackageName = mTypeUtils.getPackageName(mElements, superclassElement);
-            parentGeneratedClassName =
-                superclassPackageName
-                    + "."
-                    + mTypeUtils.getPrefixForGeneratedClass(
-                        superclassElement, superclassPackageName)
-                    + JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX;
-
-            break;
-          }
-
-          superclass = superclassElement.getSuperclass();
+        TypeElement superclassElement = getJsonTypeSuperclass(typeElement);
+        if (superclassElement != null) {
+          String superclassPackageName = mTypeUtils.getPackageName(mElements, superclassElement);
+          parentGeneratedClassName =
+              superclassPackageName
+                  + "."
+                  + mTypeUtils.getPrefixForGeneratedClass(superclassElement, superclassPackageName)
+                  + JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX;
         }
       }
 
@@ -261,11 +293,25 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
               ? mGenerateSerializers
               : annotation.generateSerializer() == JsonType.TriState.YES;
 
+      String qualifiedClassName = typeElement.getQualifiedName().toString();
+      PayloadProfile payloadProfile = null;
+      if (mPayloadProfileDir != null && !mOmitSomeMethodBodies) {
+        try {
+          payloadProfile = PayloadProfile.load(mPayloadProfileDir, qualifiedClassName);
+        } catch (IOException ex) {
+          Console.warning(
+              mMessager,
+              "Unable to read the recorded payloads for %s: %s",
+              qualifiedClassName,
+              ex.getMessage());
+        }
+      }
+
       String packageName = mTypeUtils.getPackageName(mElements, typeElement);
       injector =
           new JsonParserClassData(
               packageName,
-              typeElement.getQualifiedName().toString(),
+              qualifiedClassName,
               mTypeUtils.getClassName(typeElement, packageName),
               mTypeUtils.getPrefixForGeneratedClass(typeElement, packageName)
                   + JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX,
@@ -279,14 +325,42 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
               abstractClass,
               generateSerializer,
               mOmitSomeMethodBodies,
+              mProfileFieldOrder,
+              payloadProfile,
               parentGeneratedClassName,
+              mJsonBackendClassName,
               annotation,
               isKotlin,
-              annotation.strict());
+              annotation.strict(),
+              isMaskable(typeElement),
+              mHelperFeatures);
       mState.mClassElementToInjectorMap.put(typeElement, injector);
     }
   }
 
+  /** Returns the closest superclass of a class that is annotated with {@link JsonType}, if any. */
+  private @Nullable TypeElement getJsonTypeSuperclass(TypeElement typeElement) {
+    TypeMirror superclass = typeElement.getSuperclass();
+    // walk up the superclass hierarchy until we find another class we know about.
+    while (superclass.getKind() != TypeKind.NONE) {
+      TypeElement superclassElement = (TypeElement) mTypes.asElement(superclass);
+      if (superclassElement.getAnnotation(JsonType.class) != null) {
+        return superclassElement;
+      }
+      superclass = superclassElement.getSuperclass();
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if the helper of a class parses with field masks. A strict class needs all of its
+   * fields, and a mask cannot list the fields that a subclass inherits, so neither gets masks.
+   */
+  private boolean isMaskable(TypeElement typeElement) {
+    return !typeElement.getAnnotation(JsonType.class).strict()
+        && getJsonTypeSuperclass(typeElement) == null;
+  }
+
   /** This finds the fields that are annotated with {@link JsonField}. */
   private void gatherFieldAnnotations(RoundEnvironment env) {
     // Process each @TypeTesting elements.
@@ -369,6 +443,34 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
     data.setAssignmentFormatter(FIELD_ASSIGNMENT.forString(annotation.fieldAssignmentFormatter()));
     data.setSerializeCodeFormatter(
         FIELD_CODE_SERIALIZATION.forString(annotation.serializeCodeFormatter()));
+    if (annotation.lazy()) {
+      type = getLazyValueType(element, type, isStrict, annotation);
+      if (type == null) {
+        return;
+      }
+      data.setIsLazy(true);
+    }
+
+    if (type.getKind() == TypeKind.ARRAY) {
+      TypeMirror componentType = ((ArrayType) type).getComponentType();
+      if (!sPrimitiveArrayTypes.contains(componentType.getKind())) {
+        error(
+            element,
+            "Only arrays of int, long, float, double and boolean are supported, use a List.");
+        return;
+      }
+      if (annotation.intern()) {
+        error(element, "Only String fields can be interned.");
+        return;
+      }
+      // read and written by JsonPrimitiveArrays unless there are custom formatters.
+      data.setCollectionType(TypeUtils.CollectionType.NOT_A_COLLECTION);
+      data.setParseType(TypeUtils.ParseType.UNSUPPORTED);
+      data.setParsableType(type.toString());
+      data.setPrimitiveArrayType(componentType.toString());
+      return;
+    }
+
     TypeUtils.CollectionType collectionType = mTypeUtils.getCollectionType(type);
     data.setCollectionType(collectionType);
 
@@ -381,6 +483,16 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
 
     boolean skipEnumValidationCheck = setJsonAdapterIfApplicable(type, injector, data, annotation);
 
+    if (annotation.intern()) {
+      if (data.getJsonAdapterOrParseType() != TypeUtils.ParseType.STRING) {
+        error(element, "Only String fields can be interned.");
+      } else if (!annotation.valueExtractFormatter().isEmpty()) {
+        error(element, "Interned fields can not have a custom valueExtractFormatter.");
+      } else {
+        data.setIsInterned(true);
+      }
+    }
+
     /**
      * UNSUPPORTED can be parsed if valueExtractFormatter and or serializeCodeFormatter have been
      * provided
@@ -431,6 +543,22 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
       data.setIsInterface(typeElement.getKind() == INTERFACE);
       data.setIsWildcard(type != null && type.getKind() == TypeKind.WILDCARD);
       data.setFormatterImports(typeAnnotation.typeFormatterImports());
+      boolean isConcreteClass =
+          typeElement.getKind() == CLASS && !typeElement.getModifiers().contains(ABSTRACT);
+      // deepCopy is generated alongside the serializer, as it reads the fields the same way, and
+      // only when asked for. the type is assumed to be compiled with the same options.
+      data.setIsCopyable(
+          isConcreteClass
+              && mHelperFeatures.contains(HelperFeature.DEEP_COPY)
+              && (typeAnnotation.generateSerializer() == JsonType.TriState.DEFAULT
+                  ? mGenerateSerializers
+                  : typeAnnotation.generateSerializer() == JsonType.TriState.YES));
+      data.setIsMaskable(isConcreteClass && isMaskable(typeElement));
+      // only the helpers of concrete java classes that are not strict have mergeFromJson.
+      data.setIsMergeable(
+          isConcreteClass
+              && !typeAnnotation.strict()
+              && !isTypeElementKotlin(typeElement));
     } else if (data.getParseType() == TypeUtils.ParseType.ENUM_OBJECT) {
       // verify that we have value extract and serializer formatters.
       if (!skipEnumValidationCheck
@@ -449,6 +577,40 @@ public class JsonAnnotationProcessor extends AbstractProcessor {
     }
   }
 
+  /**
+   * Returns the type held by a field annotated with {@code @JsonField(lazy = true)}, or null after
+   * reporting an error if the field can not be lazy.
+   */
+  private @Nullable TypeMirror getLazyValueType(
+      Element element, TypeMirror type, boolean isStrict, JsonField annotation) {
+    if (isStrict) {
+      error(element, "Lazy fields are not supported in strict mode.");
+      return null;
+    }
+    if (!annotation.valueExtractFormatter().isEmpty()
+        || !annotation.fieldAssignmentFormatter().isEmpty()
+        || !annotation.serializeCodeFormatter().isEmpty()) {
+      error(element, "Lazy fields can not have custom formatters.");
+      return null;
+    }
+    if (!JsonLazyValue.class.getName().equals(mTypes.erasure(type).toString())
+        || ((DeclaredType) type).getTypeArguments().size() != 1) {
+      error(element, "Lazy fields must be declared as %s<T>.", JsonLazyValue.class.getName());
+      return null;
+    }
+    TypeMirror valueType = ((DeclaredType) type).getTypeArguments().get(0);
+    if (valueType.getKind() != TypeKind.DECLARED
+        || mTypes.asElement(valueType).getKind() != CLASS
+        || mTypes.asElement(valueType).getAnnotation(JsonType.class) == null) {
+      error(
+          element,
+          "Lazy fields must hold a class annotated with @%s.",
+          JsonType.class.getSimpleName());
+      return null;
+    }
+    return valueType;
+  }
+
   /**
    * Sets up JsonAdapter data for the annotation processor if applicable.
    *
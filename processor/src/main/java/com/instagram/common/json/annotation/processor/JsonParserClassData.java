@@ -12,6 +12,7 @@ import static com.instagram.common.json.annotation.processor.CodeFormatter.FIELD
 import static com.instagram.common.json.annotation.processor.CodeFormatter.LOCAL_ASSIGNMENT;
 import static com.instagram.common.json.annotation.processor.CodeFormatter.VALUE_EXTRACT;
 import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PROTECTED;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
@@ -21,8 +22,12 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.instagram.common.json.JsonAnnotationProcessorConstants;
 import com.instagram.common.json.JsonCallback;
+import com.instagram.common.json.JsonCodec;
 import com.instagram.common.json.JsonFactoryHolder;
+import com.instagram.common.json.JsonFieldMask;
 import com.instagram.common.json.JsonHelper;
+import com.instagram.common.json.JsonLazyValue;
+import com.instagram.common.json.JsonTape;
 import com.instagram.common.json.annotation.JsonField;
 import com.instagram.common.json.annotation.JsonType;
 import com.instagram.common.json.annotation.util.Console;
@@ -35,14 +40,18 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import javax.annotation.Nullable;
 import javax.annotation.processing.Messager;
 import javax.lang.model.element.Modifier;
 
@@ -64,6 +73,7 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
   private static final Map<TypeUtils.ParseType, CodeFormatter> sExactFormatters = new HashMap<>();
   private static final Map<TypeUtils.ParseType, CodeFormatter> sCoercedFormatters = new HashMap<>();
   private static final Map<TypeUtils.ParseType, String> sJavaTypes = new HashMap<>();
+  private static final Map<TypeUtils.ParseType, String> sPrimitiveTypes = new HashMap<>();
 
   static {
     sExactFormatters.put(
@@ -148,14 +158,31 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
     sJavaTypes.put(TypeUtils.ParseType.DOUBLE_OBJECT, "Double");
     sJavaTypes.put(TypeUtils.ParseType.STRING, "String");
 
-    // We deserialize primitives to objects in strict mode
+    // Primitives are boxed wherever they are held as objects, e.g. in collections
     sJavaTypes.put(TypeUtils.ParseType.BOOLEAN, "Boolean");
     sJavaTypes.put(TypeUtils.ParseType.INTEGER, "Integer");
     sJavaTypes.put(TypeUtils.ParseType.LONG, "Long");
     sJavaTypes.put(TypeUtils.ParseType.FLOAT, "Float");
     sJavaTypes.put(TypeUtils.ParseType.DOUBLE, "Double");
+
+    sPrimitiveTypes.put(TypeUtils.ParseType.BOOLEAN, "boolean");
+    sPrimitiveTypes.put(TypeUtils.ParseType.INTEGER, "int");
+    sPrimitiveTypes.put(TypeUtils.ParseType.LONG, "long");
+    sPrimitiveTypes.put(TypeUtils.ParseType.FLOAT, "float");
+    sPrimitiveTypes.put(TypeUtils.ParseType.DOUBLE, "double");
   }
 
+  /** used to read the value of a String field annotated with {@code intern = true}. */
+  private static final CodeFormatter INTERNED_STRING_EXACT_EXTRACT =
+      VALUE_EXTRACT.forString(
+          "(${parser_object}.getCurrentToken() == JsonToken.VALUE_STRING "
+              + "? com.instagram.common.json.JsonStringPool.getText(${parser_object}) : null)");
+
+  private static final CodeFormatter INTERNED_STRING_COERCED_EXTRACT =
+      VALUE_EXTRACT.forString(
+          "(${parser_object}.getCurrentToken() == JsonToken.VALUE_NULL "
+              + "? null : com.instagram.common.json.JsonStringPool.getText(${parser_object}))");
+
   /** used to write a single instance of a parsable object. */
   private static final CodeFormatter PARSABLE_OBJECT_SERIALIZE_CALL =
       FIELD_CODE_SERIALIZATION.forString(
@@ -174,23 +201,21 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
 
   static {
     for (TypeUtils.ParseType value : TypeUtils.ParseType.values()) {
-      String scalarWriteMethod = getScalarWriteMethodName(value);
-      if (scalarWriteMethod != null) {
+      // the field name is written separately, from a pre-encoded constant.
+      String collectionWriteMethod = getCollectionWriteMethodName(value);
+      if (collectionWriteMethod != null) {
         mScalarSerializeCalls.put(
             value,
             FIELD_CODE_SERIALIZATION.forString(
                 "${generator_object}."
-                    + scalarWriteMethod
-                    + "(\"${json_fieldname}\", ${object_varname}.${field_varname})"));
+                    + collectionWriteMethod
+                    + "(${object_varname}.${field_varname})"));
         mScalarSerializeJsonAdapterCalls.put(
             value,
             FIELD_CODE_SERIALIZATION.forString(
                 "${generator_object}."
-                    + scalarWriteMethod
-                    + "(\"${json_fieldname}\", ${adapter_method_name}(${object_varname}.${field_varname}))"));
-      }
-      String collectionWriteMethod = getCollectionWriteMethodName(value);
-      if (collectionWriteMethod != null) {
+                    + collectionWriteMethod
+                    + "(${adapter_method_name}(${object_varname}.${field_varname}))"));
         mCollectionSerializeCalls.put(
             value,
             FIELD_CODE_SERIALIZATION.forString(
@@ -202,10 +227,17 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
   private final boolean mAbstractClass;
   private final boolean mGenerateSerializer;
   private final boolean mOmitSomeMethodBodies;
+  private final boolean mProfileFieldOrder;
+  private final @Nullable PayloadProfile mPayloadProfile;
   private final String mParentInjectedClassName;
+  private final String mJsonBackendClassName;
   private final JsonType mAnnotation;
   private final boolean mIsKotlin;
   private final boolean mIsStrict;
+  private final boolean mIsMaskable;
+  private final Set<HelperFeature> mHelperFeatures;
+  private @Nullable Map<TypeData, List<String>> mDispatchedFields;
+  private @Nullable Map<TypeData, String> mSerializedFieldNames;
 
   public JsonParserClassData(
       String classPackage,
@@ -216,18 +248,28 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
       boolean abstractClass,
       boolean generateSerializer,
       boolean omitSomeMethodBodies,
+      boolean profileFieldOrder,
+      @Nullable PayloadProfile payloadProfile,
       String parentInjectedClassName,
+      String jsonBackendClassName,
       JsonType annotation,
       boolean isKotlin,
-      boolean isStrict) {
+      boolean isStrict,
+      boolean isMaskable,
+      Set<HelperFeature> helperFeatures) {
     super(classPackage, qualifiedClassName, simpleClassName, injectedClassName, factory);
     mAbstractClass = abstractClass;
     mGenerateSerializer = generateSerializer;
     mOmitSomeMethodBodies = omitSomeMethodBodies;
+    mProfileFieldOrder = profileFieldOrder;
+    mPayloadProfile = payloadProfile;
     mParentInjectedClassName = parentInjectedClassName;
+    mJsonBackendClassName = jsonBackendClassName;
     mAnnotation = annotation;
     mIsKotlin = isKotlin;
     mIsStrict = isStrict;
+    mIsMaskable = isMaskable;
+    mHelperFeatures = helperFeatures;
   }
 
   public boolean generateSerializer() {
@@ -295,6 +337,48 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
           "JsonHelper<" + mSimpleClassName + ">");
       writer.emitEmptyLine();
 
+      if (!mOmitSomeMethodBodies) {
+        writer
+            .emitField(
+                "com.instagram.common.json.JsonFieldMatcher",
+                "sFieldMatcher",
+                EnumSet.of(PRIVATE, STATIC, FINAL),
+                "new com.instagram.common.json.JsonFieldMatcher("
+                    + getFieldNamesInitializer()
+                    + (mProfileFieldOrder ? ", true)" : ")"))
+            .emitEmptyLine();
+      }
+
+      if (mGenerateSerializer && !mOmitSomeMethodBodies) {
+        writeSerializedFieldNames(writer);
+      }
+
+      if (!mAbstractClass) {
+        writer
+            .emitField(
+                "com.instagram.common.json.JsonBackend",
+                "sJsonBackend",
+                EnumSet.of(PRIVATE, STATIC, FINAL),
+                "new " + mJsonBackendClassName + "()")
+            .emitEmptyLine();
+      }
+
+      if (mProfileFieldOrder) {
+        writer
+            .beginMethod(
+                "com.instagram.common.json.JsonFieldOrderProfile",
+                "getFieldOrderProfile",
+                EnumSet.of(PUBLIC, STATIC))
+            .emitStatement(
+                mOmitSomeMethodBodies ? "return null" : "return sFieldMatcher.getProfile()")
+            .endMethod()
+            .emitEmptyLine();
+      }
+
+      if (mIsMaskable && !mAbstractClass) {
+        writeFieldMaskConstants(writer);
+      }
+
       String returnValue =
           mAnnotation.postprocessingEnabled()
               ? ("instance." + JsonType.POSTPROCESSING_METHOD_NAME + "()")
@@ -316,15 +400,32 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
               .emitStatement("return null")
               .endControlFlow()
               .emitEmptyLine()
-              .emitStatement("Object[] parsedProperties = new Object[%d];", count)
+              .emitWithGenerator(
+                  new JavaWriter.JavaGenerator() {
+                    @Override
+                    public void emitJava(JavaWriter writer) throws IOException {
+                      JsonParserClassData.this.writeParsedLocalDeclarations(writer);
+                    }
+                  })
               .emitEmptyLine()
+              .emitWithGenerator(
+                  new JavaWriter.JavaGenerator() {
+                    @Override
+                    public void emitJava(JavaWriter writer) throws IOException {
+                      JsonParserClassData.this.writeFieldIndexDeclaration(writer);
+                    }
+                  })
               .beginControlFlow("while (jp.nextToken() != JsonToken.END_OBJECT)")
-              .emitStatement("String fieldName = jp.getCurrentName()")
-              .emitStatement("jp.nextToken()")
               .emitWithGenerator(
                   new JavaWriter.JavaGenerator() {
                     @Override
                     public void emitJava(JavaWriter writer) throws IOException {
+                      if (mOmitSomeMethodBodies) {
+                        writer.emitStatement("String fieldName = jp.getCurrentName()");
+                      } else {
+                        writer.emitStatement("fieldIndex = sFieldMatcher.match(jp, fieldIndex)");
+                      }
+                      writer.emitStatement("jp.nextToken()");
                       JsonParserClassData.this.writeProcessFields(messager, writer);
                     }
                   })
@@ -368,79 +469,86 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
 
       } else {
         if (!mAbstractClass) {
-          writer
-              .beginMethod(
-                  mSimpleClassName,
-                  "parseFromJson",
-                  EnumSet.of(getParseMethodVisibility(), STATIC),
-                  Arrays.asList("JsonParser", "jp"),
-                  Collections.singletonList("IOException"))
-              .emitStatement("%s instance = new %s()", mSimpleClassName, mSimpleClassName)
-              .emitEmptyLine()
-              .emitSingleLineComment("validate that we're on the right token")
-              .beginControlFlow("if (jp.getCurrentToken() != JsonToken.START_OBJECT)")
-              .emitStatement("jp.skipChildren()")
-              .emitStatement("return null")
-              .endControlFlow()
-              .emitEmptyLine()
-              .beginControlFlow("while (jp.nextToken() != JsonToken.END_OBJECT)")
-              .emitStatement("String fieldName = jp.getCurrentName()")
-              .emitStatement("jp.nextToken()")
-              .emitStatement("processSingleField(instance, fieldName, jp)")
-              // always skip children.  if we expected an array or an object, we would have
-              // consumed the START_ARRAY or START_OBJECT.  therefore, we would only skip
-              // forward if we're seeing something unexpected.
-              .emitStatement("jp.skipChildren()")
-              .endControlFlow()
-              .emitEmptyLine()
-              .emitStatement("return %s", returnValue)
-              .endMethod()
-              .emitEmptyLine();
+          writeParseFromJson(writer, returnValue, false);
+          if (mIsMaskable) {
+            writeParseFromJson(writer, returnValue, true);
+          }
+          if (!mIsKotlin) {
+            writeParseInto(writer, returnValue, false);
+            writeParseInto(writer, returnValue, true);
+          }
+        }
+        if (!mIsKotlin) {
+          writeResetFields(writer);
         }
 
-        writer
-            .beginMethod(
-                "boolean",
-                "processSingleField",
-                EnumSet.of(getParseMethodVisibility(), STATIC),
-                Arrays.asList(
-                    mSimpleClassName, "instance", "String", "fieldName", "JsonParser", "jp"),
-                Arrays.asList("IOException"))
-            .emitWithGenerator(
-                new JavaWriter.JavaGenerator() {
-                  @Override
-                  public void emitJava(JavaWriter writer) throws IOException {
-                    JsonParserClassData.this.writeFields(messager, writer);
+        writeProcessSingleField(writer, false);
+        writeProcessSingleField(writer, true);
 
-                    // if we reached here, we need to call the superclasses processSingleField
-                    // method.
-                    if (mParentInjectedClassName != null) {
-                      writer.emitStatement(
-                          "return %s.processSingleField(instance, fieldName, jp)",
-                          mParentInjectedClassName);
-                    } else {
-                      writer.emitStatement("return false");
-                    }
-                  }
-                })
-            .endMethod()
-            .emitEmptyLine();
+        if (!mOmitSomeMethodBodies) {
+          writeProcessFieldMethod(messager, writer, false);
+          if (hasFlaggedFields()) {
+            writeProcessFieldMethod(messager, writer, true);
+          }
+          writeLazyValueClasses(writer);
+        }
       }
 
       if (!mAbstractClass) {
-        writer
-            .beginMethod(
-                mSimpleClassName,
-                "parseFromJson",
-                EnumSet.of(getParseMethodVisibility(), STATIC),
-                Arrays.asList("String", "inputString"),
-                Arrays.asList("IOException"))
-            .emitStatement(
-                "JsonParser jp = JsonFactoryHolder.APP_FACTORY.createParser(inputString)")
-            .emitStatement("jp.nextToken()")
-            .emitStatement("return parseFromJson(jp)")
-            .endMethod()
-            .emitEmptyLine();
+        writeParseFromInput(
+            writer,
+            Arrays.asList("String", "inputString"),
+            "sJsonBackend.createParser(inputString)",
+            "sJsonBackend.createParser(inputString, bufferRecycler)",
+            false);
+        if (mHelperFeatures.contains(HelperFeature.FACTORY_OVERLOADS)) {
+          writeParseFromInput(
+              writer,
+              Arrays.asList(
+                  "String", "inputString", "com.fasterxml.jackson.core.JsonFactory", "factory"),
+              "factory.createParser(inputString)",
+              null,
+              false);
+        }
+        if (mHelperFeatures.contains(HelperFeature.STREAM_PARSERS)) {
+          writeParseFromInput(
+              writer,
+              Arrays.asList("byte[]", "inputBytes"),
+              "sJsonBackend.createParser(inputBytes, 0, inputBytes.length)",
+              null,
+              false);
+          writeParseFromInput(
+              writer,
+              Arrays.asList("byte[]", "inputBytes", "int", "offset", "int", "length"),
+              "sJsonBackend.createParser(inputBytes, offset, length)",
+              null,
+              false);
+          writeParseFromInput(
+              writer,
+              Arrays.asList("java.io.InputStream", "inputStream"),
+              "sJsonBackend.createParser(inputStream)",
+              null,
+              true);
+          writeParseFromInput(
+              writer,
+              Arrays.asList("java.io.Reader", "reader"),
+              "sJsonBackend.createParser(reader)",
+              null,
+              true);
+        }
+        if (mHelperFeatures.contains(HelperFeature.CODEC_METHODS)) {
+          writeParseWithCodec(writer, Arrays.asList("String", "inputString"), "inputString");
+          writeParseWithCodec(
+              writer,
+              Arrays.asList("byte[]", "inputBytes", "int", "offset", "int", "length"),
+              "inputBytes, offset, length");
+        }
+        if (mHelperFeatures.contains(HelperFeature.ARRAY_ITERATORS)) {
+          writeArrayElementParsers(writer);
+        }
+        if (mHelperFeatures.contains(HelperFeature.JSON_LINES)) {
+          writeReadJsonLines(writer);
+        }
       }
 
       if (mGenerateSerializer) {
@@ -480,6 +588,10 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
             .emitEmptyLine();
       }
 
+      if (mGenerateSerializer && mHelperFeatures.contains(HelperFeature.DEEP_COPY)) {
+        writeCopyMethods(writer);
+      }
+
       if (mGenerateSerializer && !mAbstractClass) {
         writer
             .beginMethod(
@@ -488,15 +600,67 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
                 EnumSet.of(PUBLIC, STATIC),
                 Arrays.asList(mSimpleClassName, "object"),
                 Arrays.asList("IOException"))
+            .emitStatement(
+                "com.fasterxml.jackson.core.util.BufferRecycler bufferRecycler =\n"
+                    + "JsonFactoryHolder.acquireBufferRecycler()")
+            .beginControlFlow("try")
             .emitStatement("StringWriter stringWriter = new StringWriter()")
             .emitStatement(
-                "JsonGenerator generator = "
-                    + "JsonFactoryHolder.APP_FACTORY.createGenerator(stringWriter)")
+                "JsonGenerator generator = %s",
+                getPooledOrPlain(
+                    "sJsonBackend.createGenerator(stringWriter, bufferRecycler)",
+                    "sJsonBackend.createGenerator(stringWriter)"))
             .emitStatement("serializeToJson(generator, object, true)")
             .emitStatement("generator.close()")
             .emitStatement("return stringWriter.toString()")
+            .nextControlFlow("finally")
+            .emitStatement("JsonFactoryHolder.releaseBufferRecycler(bufferRecycler)")
+            .endControlFlow()
             .endMethod()
             .emitEmptyLine();
+        if (mHelperFeatures.contains(HelperFeature.FACTORY_OVERLOADS)) {
+          writer.beginMethod(
+              "String",
+              "serializeToJson",
+              EnumSet.of(PUBLIC, STATIC),
+              Arrays.asList(
+                  mSimpleClassName, "object", "com.fasterxml.jackson.core.JsonFactory", "factory"),
+              Arrays.asList("IOException"));
+          if (mOmitSomeMethodBodies) {
+            writer.emitStatement("return null");
+          } else {
+            writer
+                .emitStatement("StringWriter stringWriter = new StringWriter()")
+                .emitStatement("JsonGenerator generator = factory.createGenerator(stringWriter)")
+                .emitStatement("serializeToJson(generator, object, true)")
+                .emitStatement("generator.close()")
+                .emitStatement("return stringWriter.toString()");
+          }
+          writer.endMethod().emitEmptyLine();
+        }
+        if (mHelperFeatures.contains(HelperFeature.CODEC_METHODS)) {
+          writer.beginMethod(
+              "void",
+              "serializeToJson",
+              EnumSet.of(PUBLIC, STATIC),
+              Arrays.asList(
+                  "com.instagram.common.json.JsonCodec", "codec", mSimpleClassName, "object"),
+              Arrays.asList("IOException"));
+          if (!mOmitSomeMethodBodies) {
+            writer.emitStatement("serializeToJson(codec.resetGenerator(), object, true)");
+          }
+          writer.endMethod().emitEmptyLine();
+        }
+        if (mHelperFeatures.contains(HelperFeature.STREAM_SERIALIZERS)) {
+          writeStreamSerializers(writer);
+        }
+        if (mHelperFeatures.contains(HelperFeature.JSON_LINES)) {
+          writeWriteJsonLines(writer);
+        }
+      }
+
+      if (mHelperFeatures.contains(HelperFeature.VIEWS)) {
+        writeViewClass(writer);
       }
 
       writer.endType();
@@ -521,13 +685,34 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
       if (mIsStrict
           && !data.isNullable()
           && data.getDeserializeType() == TypeData.DeserializeType.PARAM) {
-        writer.beginControlFlow(
-            "if (parsedProperties[" + Integer.toString(data.getFieldIndex()) + "] == null)");
+        writer.beginControlFlow("if (" + getParsedCondition(data, false) + ")");
         writer.emitStatement(
             "callback.onUnexpectedNull(\"%s\", \"%s\");", data.getFieldName(), simpleClassName);
         writer.endControlFlow();
       }
     }
+
+    // without a callback to decide, a missing primitive parameter rejects the payload rather than
+    // constructing the instance with a default value the json never held.
+    boolean hasPrimitiveParam = false;
+    for (Map.Entry<String, TypeData> entry : getIterator()) {
+      TypeData data = entry.getValue();
+      if (mIsStrict
+          && data.getDeserializeType() == TypeData.DeserializeType.PARAM
+          && getParsedPrimitiveType(data) != null) {
+        if (!hasPrimitiveParam) {
+          writer.nextControlFlow("else");
+          hasPrimitiveParam = true;
+        }
+        writer
+            .beginControlFlow("if (" + getParsedCondition(data, false) + ")")
+            .emitStatement(
+                "throw new JsonCallback.JsonDeserializationException(%s)",
+                JavaWriter.stringLiteral(
+                    "Missing value for " + data.getFieldName() + " in " + simpleClassName))
+            .endControlFlow();
+      }
+    }
     writer.endControlFlow();
   }
 
@@ -545,79 +730,1226 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
         if (hasFirst) {
           args.append(",");
         }
-        args.append(
-            "\n      ("
-                + getTypeForField(data)
-                + ")parsedProperties["
-                + Integer.toString(data.getFieldIndex())
-                + "]");
+        args.append("\n      ").append(getParsedLocalName(data));
         hasFirst = true;
       }
     }
 
-    writer.emitStatement(
-        "%s instance = new %s(%s)", simpleClassName, simpleClassName, args.toString());
+    writer.emitStatement(
+        "%s instance = new %s(%s)", simpleClassName, simpleClassName, args.toString());
+  }
+
+  private void writeFieldAssignments(String simpleClassName, Messager messager, JavaWriter writer)
+      throws IOException {
+    if (mOmitSomeMethodBodies) {
+      return;
+    }
+
+    for (Map.Entry<String, TypeData> entry : getIterator()) {
+      TypeData data = entry.getValue();
+
+      if (data.getDeserializeType() == TypeData.DeserializeType.FIELD) {
+        writer.beginControlFlow("if (" + getParsedCondition(data, true) + ")");
+        writer.emitStatement(
+            "instance.%s = %s", data.getMemberVariableName(), getParsedLocalName(data));
+        writer.endControlFlow();
+      } else if (data.getDeserializeType() == TypeData.DeserializeType.SETTER) {
+        writer.beginControlFlow("if (" + getParsedCondition(data, true) + ")");
+        writer.emitStatement("instance.%s(%s)", data.getSetterName(), getParsedLocalName(data));
+        writer.endControlFlow();
+      }
+    }
+  }
+
+  /**
+   * This declares the locals that a strict parser holds the parsed values in until it creates the
+   * instance. A primitive value has a bit in a presence mask that is set when the field is parsed;
+   * any other value is null until then.
+   */
+  private void writeParsedLocalDeclarations(JavaWriter writer) throws IOException {
+    if (mOmitSomeMethodBodies) {
+      return;
+    }
+
+    Set<String> presenceMasks = new LinkedHashSet<>();
+    for (Map.Entry<String, TypeData> entry : getIterator()) {
+      TypeData data = entry.getValue();
+      String primitiveType = getParsedPrimitiveType(data);
+      if (primitiveType == null) {
+        writer.emitStatement("%s %s = null", getTypeForField(data), getParsedLocalName(data));
+      } else {
+        writer.emitStatement(
+            "%s %s = %s",
+            primitiveType,
+            getParsedLocalName(data),
+            "boolean".equals(primitiveType) ? "false" : "0");
+        presenceMasks.add(getPresenceMaskName(data));
+      }
+    }
+    for (String presenceMask : presenceMasks) {
+      writer.emitStatement("long %s = 0", presenceMask);
+    }
+  }
+
+  private static String getParsedLocalName(TypeData data) {
+    return "parsedProperty" + data.getFieldIndex();
+  }
+
+  /**
+   * Returns the primitive type of the local that a strict parser holds the value of a field in, or
+   * null if the local is an object.
+   */
+  private static @Nullable String getParsedPrimitiveType(TypeData data) {
+    if (data.getCollectionType() != TypeUtils.CollectionType.NOT_A_COLLECTION
+        || data.getJsonAdapterParseType() != null
+        || !data.getValueExtractFormatter().isEmpty()
+        || !data.getAssignmentFormatter().isEmpty()) {
+      return null;
+    }
+    return sPrimitiveTypes.get(data.getParseType());
+  }
+
+  /** Returns the name of the presence mask that holds the bit of a primitive field. */
+  private static String getPresenceMaskName(TypeData data) {
+    return "presentFields" + data.getFieldIndex() / 64;
+  }
+
+  private static String getPresenceBit(TypeData data) {
+    return "(1L << " + data.getFieldIndex() % 64 + ")";
+  }
+
+  /**
+   * Returns the condition under which a strict parser has, or with {@code parsed} false has not,
+   * parsed a value for a field.
+   */
+  private static String getParsedCondition(TypeData data, boolean parsed) {
+    String operator = parsed ? " != " : " == ";
+    if (getParsedPrimitiveType(data) == null) {
+      return getParsedLocalName(data) + operator + "null";
+    }
+    return "(" + getPresenceMaskName(data) + " & " + getPresenceBit(data) + ")" + operator + "0";
+  }
+
+  /** Returns the declared type of a field, with primitives boxed. */
+  private String getTypeForField(TypeData data) {
+    if (data.getParseType() == TypeUtils.ParseType.UNSUPPORTED) {
+      StringBuilder sb = new StringBuilder();
+      sb.append(data.getParsableType());
+      if (data.isWildcard() && data.isInterface() && mIsKotlin) {
+        sb.append("<?>");
+      }
+      return sb.toString();
+    }
+    if (data.getCollectionType() != TypeUtils.CollectionType.NOT_A_COLLECTION) {
+      String innerType = getJavaType(data);
+      String interfaceType = mapCollectionTypeToInterfaceType(data.getCollectionType());
+      if (TypeUtils.isMapType(data.getCollectionType())) {
+        return interfaceType + "<String, " + innerType + ">";
+      } else {
+        return interfaceType + "<" + innerType + ">";
+      }
+    } else {
+      return getJavaType(data);
+    }
+  }
+
+  /**
+   * This writes {@code parseFromJson(JsonParser)} for a class that is not strict, or with {@code
+   * masked}, the overload that only parses the fields in a {@link JsonFieldMask}. Skipped fields
+   * are passed over by the {@code skipChildren()} at the end of the loop.
+   */
+  private void writeParseFromJson(JavaWriter writer, String returnValue, final boolean masked)
+      throws IOException {
+    writer.beginMethod(
+        mSimpleClassName,
+        "parseFromJson",
+        EnumSet.of(getParseMethodVisibility(), STATIC),
+        masked
+            ? Arrays.asList(
+                "JsonParser",
+                "jp",
+                "com.instagram.common.json.JsonFieldMask<" + mSimpleClassName + ">",
+                "mask")
+            : Arrays.asList("JsonParser", "jp"),
+        Collections.singletonList("IOException"));
+    if (masked) {
+      writer
+          .beginControlFlow("if (mask == null)")
+          .emitStatement("return parseFromJson(jp)")
+          .endControlFlow();
+      if (mOmitSomeMethodBodies) {
+        writer.emitStatement("return parseFromJson(jp)").endMethod().emitEmptyLine();
+        return;
+      }
+    }
+    writer
+        .emitStatement("%s instance = new %s()", mSimpleClassName, mSimpleClassName)
+        .emitEmptyLine()
+        .emitSingleLineComment("validate that we're on the right token")
+        .beginControlFlow("if (jp.getCurrentToken() != JsonToken.START_OBJECT)")
+        .emitStatement("jp.skipChildren()")
+        .emitStatement("return null")
+        .endControlFlow()
+        .emitEmptyLine()
+        .emitWithGenerator(
+            new JavaWriter.JavaGenerator() {
+              @Override
+              public void emitJava(JavaWriter writer) throws IOException {
+                JsonParserClassData.this.writeFieldIndexDeclaration(writer);
+              }
+            })
+        .beginControlFlow("while (jp.nextToken() != JsonToken.END_OBJECT)")
+        .emitWithGenerator(
+            new JavaWriter.JavaGenerator() {
+              @Override
+              public void emitJava(JavaWriter writer) throws IOException {
+                JsonParserClassData.this.writeProcessNextField(writer, masked, false, false);
+              }
+            })
+        // always skip children.  if we expected an array or an object, we would have
+        // consumed the START_ARRAY or START_OBJECT.  therefore, we would only skip
+        // forward if we're seeing something unexpected.
+        .emitStatement("jp.skipChildren()")
+        .endControlFlow()
+        .emitEmptyLine()
+        .emitStatement("return %s", returnValue)
+        .endMethod()
+        .emitEmptyLine();
+  }
+
+  /**
+   * This writes {@code parseInto}, which parses into an existing instance instead of a new one, or
+   * with {@code merge} set, {@code mergeFromJson}, which only overwrites the fields that are in the
+   * json and merges the objects they hold. {@code parseInto} resets the fields of the instance
+   * first, and clears and fills again the collections it holds rather than replace them. {@code
+   * mergeFromJson} replaces them, since the instance may share them or hold immutable ones.
+   */
+  private void writeParseInto(JavaWriter writer, String returnValue, final boolean merge)
+      throws IOException {
+    if (!merge) {
+      writer.emitJavadoc(
+          "Parses into {@code instance}, whose fields are reset first. Unlike {@code\n"
+              + "parseFromJson}, a collection that is missing from the json is left empty rather\n"
+              + "than null, since the collections the instance holds are cleared and reused.");
+    }
+    writer
+        .beginMethod(
+            mSimpleClassName,
+            merge ? "mergeFromJson" : "parseInto",
+            EnumSet.of(getParseMethodVisibility(), STATIC),
+            Arrays.asList(mSimpleClassName, "instance", "JsonParser", "jp"),
+            Collections.singletonList("IOException"))
+        .emitSingleLineComment("validate that we're on the right token")
+        .beginControlFlow("if (jp.getCurrentToken() != JsonToken.START_OBJECT)")
+        .emitStatement("jp.skipChildren()")
+        .emitStatement("return null")
+        .endControlFlow()
+        .emitEmptyLine();
+    if (!merge) {
+      writer.emitStatement("resetFields(instance)").emitEmptyLine();
+    }
+    writer
+        .emitWithGenerator(
+            new JavaWriter.JavaGenerator() {
+              @Override
+              public void emitJava(JavaWriter writer) throws IOException {
+                JsonParserClassData.this.writeFieldIndexDeclaration(writer);
+              }
+            })
+        .beginControlFlow("while (jp.nextToken() != JsonToken.END_OBJECT)")
+        .emitWithGenerator(
+            new JavaWriter.JavaGenerator() {
+              @Override
+              public void emitJava(JavaWriter writer) throws IOException {
+                JsonParserClassData.this.writeProcessNextField(writer, false, !merge, merge);
+              }
+            })
+        .emitStatement("jp.skipChildren()")
+        .endControlFlow()
+        .emitEmptyLine()
+        .emitStatement("return %s", returnValue)
+        .endMethod()
+        .emitEmptyLine();
+  }
+
+  /**
+   * This writes {@code resetFields}, which sets the fields of an instance, including the ones it
+   * inherits, to null, zero or false, except that the collections it holds are cleared instead.
+   */
+  private void writeResetFields(JavaWriter writer) throws IOException {
+    writer.beginMethod(
+        "void",
+        "resetFields",
+        EnumSet.of(getParseMethodVisibility(), STATIC),
+        Arrays.asList(mSimpleClassName, "instance"),
+        Collections.<String>emptyList());
+    if (mParentInjectedClassName != null) {
+      writer.emitStatement("%s.resetFields(instance)", mParentInjectedClassName);
+    }
+    if (!mOmitSomeMethodBodies) {
+      for (Map.Entry<String, TypeData> entry : getIterator()) {
+        TypeData data = entry.getValue();
+        String field = "instance." + data.getMemberVariableName();
+        String primitiveType =
+            data.getCollectionType() == TypeUtils.CollectionType.NOT_A_COLLECTION
+                ? sPrimitiveTypes.get(data.getParseType())
+                : null;
+        if (isCollectionReusable(data)) {
+          writer
+              .beginControlFlow("if (" + field + " != null)")
+              .emitStatement("%s.clear()", field)
+              .endControlFlow();
+        } else if (primitiveType != null) {
+          writer.emitStatement("%s = %s", field, "boolean".equals(primitiveType) ? "false" : "0");
+        } else {
+          writer.emitStatement("%s = null", field);
+        }
+      }
+    }
+    writer.endMethod().emitEmptyLine();
+  }
+
+  /**
+   * This writes {@code deepCopy}, which copies an instance field by field rather than through json.
+   * Objects of other {@code JsonType} classes are copied by their own helpers, and collections are
+   * copied into new collections sized for their contents; other values are shared with the copy.
+   * Unless the class is strict, the fields are copied by {@code copyFields}, which also copies the
+   * fields of the superclass, and is all an abstract class gets.
+   */
+  private void writeCopyMethods(JavaWriter writer) throws IOException {
+    if (!mIsStrict) {
+      writer.beginMethod(
+          "void",
+          "copyFields",
+          EnumSet.of(getParseMethodVisibility(), STATIC),
+          Arrays.asList(mSimpleClassName, "object", mSimpleClassName, "copy"),
+          Collections.<String>emptyList());
+      if (!mOmitSomeMethodBodies) {
+        if (mParentInjectedClassName != null) {
+          writer.emitStatement("%s.copyFields(object, copy)", mParentInjectedClassName);
+        }
+        for (Map.Entry<String, TypeData> entry : getIterator()) {
+          TypeData data = entry.getValue();
+          // the value is copied as it is held, so a custom assignment formatter does not apply.
+          if (mIsKotlin) {
+            writer.emitStatement(
+                "copy.%s(%s)", data.getSetterName(), writeCopiedValue(writer, data));
+          } else {
+            writer.emitStatement(
+                "copy.%s = %s", data.getMemberVariableName(), writeCopiedValue(writer, data));
+          }
+        }
+      }
+      writer.endMethod().emitEmptyLine();
+    }
+
+    if (mAbstractClass) {
+      return;
+    }
+
+    writer
+        .beginMethod(
+            mSimpleClassName,
+            "deepCopy",
+            EnumSet.of(PUBLIC, STATIC),
+            Arrays.asList(mSimpleClassName, "object"),
+            Collections.<String>emptyList());
+    if (mOmitSomeMethodBodies) {
+      writer.emitStatement("return null").endMethod().emitEmptyLine();
+      return;
+    }
+    writer.beginControlFlow("if (object == null)").emitStatement("return null").endControlFlow();
+    if (!mIsStrict) {
+      writer
+          .emitStatement("%s copy = new %s()", mSimpleClassName, mSimpleClassName)
+          .emitStatement("copyFields(object, copy)")
+          .emitStatement("return copy");
+    } else {
+      StringBuilder args = new StringBuilder();
+      for (Map.Entry<String, TypeData> entry : getIterator()) {
+        TypeData data = entry.getValue();
+        if (data.getDeserializeType() == TypeData.DeserializeType.PARAM) {
+          if (args.length() > 0) {
+            args.append(",");
+          }
+          args.append("\n      ").append(writeCopiedValue(writer, data));
+        }
+      }
+      writer.emitStatement(
+          "%s copy = new %s(%s)", mSimpleClassName, mSimpleClassName, args.toString());
+      for (Map.Entry<String, TypeData> entry : getIterator()) {
+        TypeData data = entry.getValue();
+        if (data.getDeserializeType() == TypeData.DeserializeType.FIELD) {
+          writer.emitStatement(
+              "copy.%s = %s", data.getMemberVariableName(), writeCopiedValue(writer, data));
+        } else if (data.getDeserializeType() == TypeData.DeserializeType.SETTER) {
+          writer.emitStatement(
+              "copy.%s(%s)", data.getSetterName(), writeCopiedValue(writer, data));
+        }
+      }
+      writer.emitStatement("return copy");
+    }
+    writer.endMethod().emitEmptyLine();
+  }
+
+  /**
+   * This writes any statements needed to copy the value of a field of {@code object}, and returns
+   * the expression for the copy. A collection of objects to copy is built in a local first.
+   */
+  private String writeCopiedValue(JavaWriter writer, TypeData data) throws IOException {
+    String value = getCopySource(data);
+    if (data.getCollectionType() == TypeUtils.CollectionType.NOT_A_COLLECTION) {
+      if (data.isLazy()) {
+        return writeCopiedLazyValue(writer, data, value);
+      }
+      if (data.getPrimitiveArrayType() != null) {
+        return String.format("(%s == null ? null : %s.clone())", value, value);
+      }
+      return getCopiedElement(data, value);
+    }
+
+    boolean isMap = TypeUtils.isMapType(data.getCollectionType());
+    String innerType = getJavaType(data);
+    String typeArgs = isMap ? "String, " + innerType : innerType;
+    String interfaceType = mapCollectionTypeToInterfaceType(data.getCollectionType());
+    String concreteType = mapCollectionTypeToConcreteType(data.getCollectionType());
+    String local = "copied" + data.getFieldIndex();
+    if (!isObjectCopyable(data)) {
+      // the copy constructors already size the new collection for the contents.
+      writer.emitStatement(
+          "%s<%s> %s = %s == null ? null : new %s<%s>(%s)",
+          interfaceType, typeArgs, local, value, concreteType, typeArgs, value);
+      return local;
+    }
+
+    writer
+        .emitStatement("%s<%s> %s = null", interfaceType, typeArgs, local)
+        .beginControlFlow("if (" + value + " != null)")
+        .emitStatement(
+            "%s = new %s<%s>(%s)",
+            local, concreteType, typeArgs, getCopyCapacity(data, value + ".size()"));
+    if (isMap) {
+      writer
+          .beginControlFlow(
+              "for (Map.Entry<String, " + innerType + "> entry : " + value + ".entrySet())")
+          .emitStatement(
+              "%s.put(entry.getKey(), %s)", local, getCopiedElement(data, "entry.getValue()"));
+    } else {
+      writer
+          .beginControlFlow("for (" + innerType + " element : " + value + ")")
+          .emitStatement("%s.add(%s)", local, getCopiedElement(data, "element"));
+    }
+    writer.endControlFlow().endControlFlow();
+    return local;
+  }
+
+  /**
+   * This writes the copy of a lazy field into a local and returns its name. Json that has not been
+   * parsed yet is handed to a new holder, and a parsed value is copied into one.
+   */
+  private String writeCopiedLazyValue(JavaWriter writer, TypeData data, String value)
+      throws IOException {
+    String local = "copied" + data.getFieldIndex();
+    String parsed = value + ".getIfParsed()";
+    if (data.isCopyable() && !StringUtil.isNullOrEmpty(data.getParsableTypeParserClass())) {
+      parsed =
+          data.getParsableTypeParserClass()
+              + JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX
+              + ".deepCopy("
+              + parsed
+              + ")";
+    }
+    writer
+        .emitStatement(
+            "com.instagram.common.json.JsonLazyValue<%s> %s = null", getJavaType(data), local)
+        .beginControlFlow("if (" + value + " != null)")
+        .emitStatement("%s = %s.copyUnparsed()", local, value)
+        .beginControlFlow("if (" + local + " == null)")
+        .emitStatement("%s = com.instagram.common.json.JsonLazyValue.of(%s)", local, parsed)
+        .endControlFlow()
+        .endControlFlow();
+    return local;
+  }
+
+  /** Returns the expression that reads the value of a field of {@code object}. */
+  private static String getCopySource(TypeData data) {
+    return "object."
+        + (data.getSerializeType() == TypeData.SerializeType.GETTER
+            ? data.getGetterName() + "()"
+            : data.getMemberVariableName());
+  }
+
+  /** Returns the constructor argument that sizes a collection to hold {@code size} elements. */
+  private static String getCopyCapacity(TypeData data, String size) {
+    switch (data.getCollectionType()) {
+      case HASHMAP:
+      case SET:
+        return size + " * 4 / 3 + 1";
+      default:
+        return size;
+    }
+  }
+
+  /** Returns the expression that copies a single value, or the value itself if it is shared. */
+  private static String getCopiedElement(TypeData data, String value) {
+    if (!isObjectCopyable(data)) {
+      return value;
+    }
+    return data.getParsableTypeParserClass()
+        + JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX
+        + ".deepCopy("
+        + value
+        + ")";
+  }
+
+  /**
+   * Returns true if values of the field are parsed by another helper that can be handed a {@link
+   * JsonFieldMask} for the value.
+   */
+  private static boolean isObjectMaskable(TypeData data) {
+    return hasHelperParser(data) && data.isMaskable();
+  }
+
+  /** Returns true if values of the field are copied by the {@code deepCopy} of another helper. */
+  private static boolean isObjectCopyable(TypeData data) {
+    return hasHelperParser(data) && data.isCopyable();
+  }
+
+  /**
+   * This writes a {@link JsonFieldMask.Field} constant for each field, named after its json field
+   * name, and the {@code fields} method that builds a mask from them. Fields holding another
+   * {@code JsonType} get a {@link JsonFieldMask.ObjectField} so that a mask for their value can be
+   * attached.
+   */
+  private void writeFieldMaskConstants(JavaWriter writer) throws IOException {
+    Set<String> constantNames = new HashSet<>();
+    int fieldIndex = 0;
+    for (TypeData data : getDispatchedFields().keySet()) {
+      String constantName = toConstantName(data.getFieldName());
+      for (int i = 2; !constantNames.add(constantName); i++) {
+        constantName = toConstantName(data.getFieldName()) + "_" + i;
+      }
+      String fieldType =
+          isObjectMaskable(data)
+              ? "com.instagram.common.json.JsonFieldMask.ObjectField<"
+                  + mSimpleClassName
+                  + ", "
+                  + getJavaType(data)
+                  + ">"
+              : "com.instagram.common.json.JsonFieldMask.Field<" + mSimpleClassName + ">";
+      writer.emitField(
+          fieldType,
+          constantName,
+          EnumSet.of(PUBLIC, STATIC, FINAL),
+          "new " + fieldType + "(" + fieldIndex++ + ")");
+    }
+    writer
+        .emitEmptyLine()
+        .emitAnnotation(SafeVarargs.class)
+        .beginMethod(
+            "com.instagram.common.json.JsonFieldMask<" + mSimpleClassName + ">",
+            "fields",
+            EnumSet.of(PUBLIC, STATIC),
+            Arrays.asList(
+                "com.instagram.common.json.JsonFieldMask.Field<" + mSimpleClassName + ">...",
+                "fields"),
+            null)
+        .emitStatement("return com.instagram.common.json.JsonFieldMask.of(fields)")
+        .endMethod()
+        .emitEmptyLine();
+  }
+
+  /**
+   * This writes a {@link JsonLazyValue} subclass for each type held by a lazy field, which parses
+   * the value with the helper of that type.
+   */
+  private void writeLazyValueClasses(JavaWriter writer) throws IOException {
+    Set<String> classNames = new HashSet<>();
+    for (TypeData data : getDispatchedFields().keySet()) {
+      if (!data.isLazy() || !classNames.add(getLazyValueClassName(data))) {
+        continue;
+      }
+      String valueType = getJavaType(data);
+      writer
+          .beginType(
+              getLazyValueClassName(data),
+              "class",
+              EnumSet.of(PRIVATE, STATIC, FINAL),
+              "com.instagram.common.json.JsonLazyValue<" + valueType + ">")
+          .beginConstructor(
+              EnumSet.noneOf(Modifier.class),
+              Arrays.asList("JsonParser", "jp"),
+              Arrays.asList("IOException"))
+          .emitStatement("super(jp)")
+          .endConstructor()
+          .emitEmptyLine()
+          .beginConstructor(
+              EnumSet.noneOf(Modifier.class),
+              Arrays.asList("byte[]", "json"),
+              Collections.<String>emptyList())
+          .emitStatement("super(json)")
+          .endConstructor()
+          .emitEmptyLine()
+          .emitAnnotation(Override.class)
+          .beginMethod(
+              "com.instagram.common.json.JsonLazyValue<" + valueType + ">",
+              "withJson",
+              EnumSet.of(PROTECTED),
+              "byte[]",
+              "json")
+          .emitStatement("return new %s(json)", getLazyValueClassName(data))
+          .endMethod()
+          .emitEmptyLine()
+          .emitAnnotation(Override.class)
+          .beginMethod(
+              valueType,
+              "parse",
+              EnumSet.of(PROTECTED),
+              Arrays.asList("JsonParser", "jp"),
+              Arrays.asList("IOException"))
+          .emitStatement(
+              "return %s%s.parseFromJson(jp)",
+              data.getParsableTypeParserClass(),
+              JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX)
+          .endMethod()
+          .endType()
+          .emitEmptyLine();
+    }
+  }
+
+  private static String getLazyValueClassName(TypeData data) {
+    return getNestedClassName(
+        data.getParsableTypeParserClass() + JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX,
+        "LazyValue");
+  }
+
+  /**
+   * Returns the name of a class nested in a helper, e.g. {@code Foo__View} in {@code
+   * Foo__JsonHelper}. The name of the model is part of it, so that it cannot hide a model class
+   * of the same name from the generated code.
+   */
+  private static String getNestedClassName(String helperClassName, String kind) {
+    String simpleName = helperClassName.substring(helperClassName.lastIndexOf('.') + 1);
+    return simpleName.substring(
+            0, simpleName.length() - JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX.length())
+        + "__"
+        + kind;
+  }
+
+  /** Returns a json field name as an upper case constant name, e.g. "fullName" as FULL_NAME. */
+  private static String toConstantName(String fieldName) {
+    String constantName =
+        fieldName
+            .replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+            .replaceAll("[^A-Za-z0-9]+", "_")
+            .replaceAll("^_|_$", "")
+            .toUpperCase(Locale.US);
+    if (constantName.isEmpty() || Character.isDigit(constantName.charAt(0))) {
+      constantName = "FIELD_" + constantName;
+    }
+    return constantName;
+  }
+
+  /**
+   * Returns true if values of the field are parsed by the helper of another {@code JsonType}, with
+   * its default {@code parseFromJson}.
+   */
+  private static boolean hasHelperParser(TypeData data) {
+    return data.getParseType() == TypeUtils.ParseType.PARSABLE_OBJECT
+        && !data.isLazy()
+        && !data.isInterface()
+        && data.getJsonAdapterFromJsonMethod() == null
+        && !StringUtil.isNullOrEmpty(data.getParsableTypeParserClass())
+        && JsonType.DEFAULT_VALUE_EXTRACT_FORMATTER.equals(
+            data.getValueExtractFormatter().getFormatterString());
+  }
+
+  /**
+   * This writes a {@code parseFromJson} overload that creates a parser for its input, parses an
+   * instance with it and closes the parser. Byte input is handed to the parser directly, without
+   * first being decoded into a string.
+   *
+   * @param parameters alternating parameter types and names.
+   * @param createParser the expression that creates the parser.
+   * @param createPooledParser if not null, the expression that creates the parser with a {@code
+   *     bufferRecycler} from the shared pool, which is returned once the parser is closed. It is
+   *     used instead of {@code createParser} while the installed factory pools its buffers.
+   * @param callerOwnsInput whether the input is a stream or reader that the caller closes, so that
+   *     closing the parser must leave it open.
+   */
+  private void writeParseFromInput(
+      JavaWriter writer,
+      List<String> parameters,
+      String createParser,
+      @Nullable String createPooledParser,
+      boolean callerOwnsInput)
+      throws IOException {
+    writer.beginMethod(
+        mSimpleClassName,
+        "parseFromJson",
+        EnumSet.of(getParseMethodVisibility(), STATIC),
+        parameters,
+        Arrays.asList("IOException"));
+    if (mOmitSomeMethodBodies) {
+      writer.emitStatement("return null").endMethod().emitEmptyLine();
+      return;
+    }
+    if (createPooledParser != null) {
+      writer
+          .emitStatement(
+              "com.fasterxml.jackson.core.util.BufferRecycler bufferRecycler =\n"
+                  + "JsonFactoryHolder.acquireBufferRecycler()")
+          .emitStatement("JsonParser jp = %s", getPooledOrPlain(createPooledParser, createParser));
+    } else {
+      writer.emitStatement("JsonParser jp = %s", createParser);
+    }
+    if (callerOwnsInput) {
+      writer.emitStatement("jp.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)");
+    }
+    writer
+        .beginControlFlow("try")
+        .emitStatement("jp.nextToken()")
+        .emitStatement("return parseFromJson(jp)")
+        .nextControlFlow("finally")
+        .emitStatement("jp.close()");
+    if (createPooledParser != null) {
+      writer.emitStatement("JsonFactoryHolder.releaseBufferRecycler(bufferRecycler)");
+    }
+    writer.endControlFlow().endMethod().emitEmptyLine();
+  }
+
+  /**
+   * Returns an expression that creates a parser or generator with the {@code bufferRecycler} taken
+   * from the shared pool, or without one if none was taken because the installed factory is not a
+   * {@code PooledJsonFactory}.
+   */
+  private static String getPooledOrPlain(String pooled, String plain) {
+    return String.format("bufferRecycler != null\n? %s\n: %s", pooled, plain);
+  }
+
+  /**
+   * This writes a {@code parseFromJson} overload that resets the parser of a {@link JsonCodec} to
+   * its input instead of creating one. The parser is left open for the next document.
+   *
+   * @param parameters the parameters after the codec, alternating types and names.
+   * @param resetParserArgs the arguments to pass to {@code JsonCodec.resetParser}.
+   */
+  private void writeParseWithCodec(
+      JavaWriter writer, List<String> parameters, String resetParserArgs) throws IOException {
+    List<String> allParameters =
+        new ArrayList<>(Arrays.asList("com.instagram.common.json.JsonCodec", "codec"));
+    allParameters.addAll(parameters);
+    writer.beginMethod(
+        mSimpleClassName,
+        "parseFromJson",
+        EnumSet.of(getParseMethodVisibility(), STATIC),
+        allParameters,
+        Arrays.asList("IOException"));
+    if (mOmitSomeMethodBodies) {
+      writer.emitStatement("return null");
+    } else {
+      writer
+          .emitStatement("JsonParser jp = codec.resetParser(%s)", resetParserArgs)
+          .emitStatement("jp.nextToken()")
+          .emitStatement("return parseFromJson(jp)");
+    }
+    writer.endMethod().emitEmptyLine();
+  }
+
+  /**
+   * This writes {@code forEachInArray} and {@code iterateArray}, which parse the elements of an
+   * array of this type one at a time instead of collecting them into a list first.
+   */
+  private void writeArrayElementParsers(JavaWriter writer) throws IOException {
+    writer.beginMethod(
+        "void",
+        "forEachInArray",
+        EnumSet.of(getParseMethodVisibility(), STATIC),
+        Arrays.asList(
+            "JsonParser",
+            "jp",
+            "com.instagram.common.json.JsonElementConsumer<" + mSimpleClassName + ">",
+            "consumer"),
+        Arrays.asList("IOException"));
+    if (!mOmitSomeMethodBodies) {
+      writer
+          .emitSingleLineComment("validate that we're on the right token")
+          .beginControlFlow("if (jp.getCurrentToken() != JsonToken.START_ARRAY)")
+          .emitStatement("jp.skipChildren()")
+          .emitStatement("return")
+          .endControlFlow()
+          .beginControlFlow("while (jp.nextToken() != JsonToken.END_ARRAY)")
+          .emitStatement("%s parsed = parseFromJson(jp)", mSimpleClassName)
+          .beginControlFlow("if (parsed != null)")
+          .emitStatement("consumer.accept(parsed)")
+          .endControlFlow()
+          .endControlFlow();
+    }
+    writer
+        .endMethod()
+        .emitEmptyLine()
+        .beginMethod(
+            "java.util.Iterator<" + mSimpleClassName + ">",
+            "iterateArray",
+            EnumSet.of(getParseMethodVisibility(), STATIC),
+            Arrays.asList("JsonParser", "jp"),
+            Arrays.asList("IOException"));
+    if (mOmitSomeMethodBodies) {
+      // the iterator class is private, so an ABI does not need it.
+      writer.emitStatement("return null").endMethod().emitEmptyLine();
+      return;
+    }
+    writer
+        .emitStatement("return new %s(jp)", getNestedClassName(mInjectedClassName, "ArrayIterator"))
+        .endMethod()
+        .emitEmptyLine()
+        .beginType(
+            getNestedClassName(mInjectedClassName, "ArrayIterator"),
+            "class",
+            EnumSet.of(PRIVATE, STATIC, FINAL),
+            "com.instagram.common.json.JsonArrayIterator<" + mSimpleClassName + ">")
+        .beginConstructor(
+            EnumSet.noneOf(Modifier.class),
+            Arrays.asList("JsonParser", "jp"),
+            Arrays.asList("IOException"))
+        .emitStatement("super(jp)")
+        .endConstructor()
+        .emitEmptyLine()
+        .emitAnnotation(Override.class)
+        .beginMethod(
+            mSimpleClassName,
+            "parseElement",
+            EnumSet.of(PROTECTED),
+            Arrays.asList("JsonParser", "jp"),
+            Arrays.asList("IOException"))
+        .emitStatement("return parseFromJson(jp)")
+        .endMethod()
+        .endType()
+        .emitEmptyLine();
+  }
+
+  /**
+   * This writes {@code serializeToJson(outputStream, object)} and {@code serializeToBytes}, which
+   * encode straight to UTF-8 bytes instead of building a string first.
+   */
+  private void writeStreamSerializers(JavaWriter writer) throws IOException {
+    writer.beginMethod(
+        "void",
+        "serializeToJson",
+        EnumSet.of(PUBLIC, STATIC),
+        Arrays.asList("java.io.OutputStream", "outputStream", mSimpleClassName, "object"),
+        Arrays.asList("IOException"));
+    if (!mOmitSomeMethodBodies) {
+      writer
+          .emitStatement(
+              "com.fasterxml.jackson.core.util.BufferRecycler bufferRecycler =\n"
+                  + "JsonFactoryHolder.acquireBufferRecycler()")
+          .beginControlFlow("try")
+          .emitStatement(
+              "JsonGenerator generator = %s",
+              getPooledOrPlain(
+                  "sJsonBackend.createGenerator(outputStream, bufferRecycler)",
+                  "sJsonBackend.createGenerator(outputStream)"))
+          .emitSingleLineComment("the stream belongs to the caller; closing the generator only")
+          .emitSingleLineComment("flushes it.")
+          .emitStatement("generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)")
+          .emitStatement("serializeToJson(generator, object, true)")
+          .emitStatement("generator.close()")
+          .nextControlFlow("finally")
+          .emitStatement("JsonFactoryHolder.releaseBufferRecycler(bufferRecycler)")
+          .endControlFlow();
+    }
+    writer
+        .endMethod()
+        .emitEmptyLine()
+        .beginMethod(
+            "byte[]",
+            "serializeToBytes",
+            EnumSet.of(PUBLIC, STATIC),
+            Arrays.asList(mSimpleClassName, "object"),
+            Arrays.asList("IOException"));
+    if (mOmitSomeMethodBodies) {
+      writer.emitStatement("return null");
+    } else {
+      writer
+          .emitStatement(
+              "com.fasterxml.jackson.core.util.BufferRecycler bufferRecycler =\n"
+                  + "JsonFactoryHolder.acquireBufferRecycler()")
+          .emitStatement(
+              "com.fasterxml.jackson.core.util.ByteArrayBuilder byteArrayBuilder =\n"
+                  + "new com.fasterxml.jackson.core.util.ByteArrayBuilder(bufferRecycler)")
+          .beginControlFlow("try")
+          .emitStatement(
+              "JsonGenerator generator = %s",
+              getPooledOrPlain(
+                  "sJsonBackend.createGenerator(byteArrayBuilder, bufferRecycler)",
+                  "sJsonBackend.createGenerator(byteArrayBuilder)"))
+          .emitStatement("serializeToJson(generator, object, true)")
+          .emitStatement("generator.close()")
+          .emitStatement("return byteArrayBuilder.toByteArray()")
+          .nextControlFlow("finally")
+          .emitStatement("byteArrayBuilder.release()")
+          .emitStatement("JsonFactoryHolder.releaseBufferRecycler(bufferRecycler)")
+          .endControlFlow();
+    }
+    writer.endMethod().emitEmptyLine();
+  }
+
+  /**
+   * This writes {@code readJsonLines}, which parses newline-delimited json from a stream with a
+   * single parser and hands each record to a consumer.
+   */
+  private void writeReadJsonLines(JavaWriter writer) throws IOException {
+    writer.beginMethod(
+        "void",
+        "readJsonLines",
+        EnumSet.of(getParseMethodVisibility(), STATIC),
+        Arrays.asList(
+            "java.io.InputStream",
+            "inputStream",
+            "com.instagram.common.json.JsonElementConsumer<" + mSimpleClassName + ">",
+            "consumer"),
+        Arrays.asList("IOException"));
+    if (!mOmitSomeMethodBodies) {
+      writer
+          .emitSingleLineComment("one parser reads every record; jackson treats them as a")
+          .emitSingleLineComment("sequence of root values separated by whitespace.")
+          .emitStatement("JsonParser jp = sJsonBackend.createParser(inputStream)")
+          .emitStatement("jp.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)")
+          .beginControlFlow("try")
+          .beginControlFlow("while (jp.nextToken() != null)")
+          .emitStatement("%s parsed = parseFromJson(jp)", mSimpleClassName)
+          .beginControlFlow("if (parsed != null)")
+          .emitStatement("consumer.accept(parsed)")
+          .endControlFlow()
+          .endControlFlow()
+          .nextControlFlow("finally")
+          .emitStatement("jp.close()")
+          .endControlFlow();
+    }
+    writer.endMethod().emitEmptyLine();
+  }
+
+  /**
+   * This writes {@code writeJsonLines}, which serializes objects to a stream as newline-delimited
+   * json with a single generator.
+   */
+  private void writeWriteJsonLines(JavaWriter writer) throws IOException {
+    writer.beginMethod(
+        "void",
+        "writeJsonLines",
+        EnumSet.of(PUBLIC, STATIC),
+        Arrays.asList(
+            "java.io.OutputStream",
+            "outputStream",
+            "Iterable<" + mSimpleClassName + ">",
+            "objects"),
+        Arrays.asList("IOException"));
+    if (!mOmitSomeMethodBodies) {
+      writer
+          .emitStatement("JsonGenerator generator = sJsonBackend.createGenerator(outputStream)")
+          .emitStatement("generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)")
+          .emitSingleLineComment("end each record with a newline rather than separating records")
+          .emitSingleLineComment("with jackson's default root value separator, a space.")
+          .emitStatement("generator.setRootValueSeparator(null)")
+          .beginControlFlow("try")
+          .beginControlFlow("for (" + mSimpleClassName + " object : objects)")
+          .beginControlFlow("if (object != null)")
+          .emitStatement("serializeToJson(generator, object, true)")
+          .emitStatement("generator.writeRaw('\\n')")
+          .endControlFlow()
+          .endControlFlow()
+          .nextControlFlow("finally")
+          .emitStatement("generator.close()")
+          .endControlFlow();
+    }
+    writer.endMethod().emitEmptyLine();
+  }
+
+  /**
+   * This writes a {@code View} class that reads the fields of this type from a {@link JsonTape},
+   * along with {@code view} methods that build one for the root of a document. A getter only
+   * decodes the value it returns, so reading a few fields of a large document skips the cost of
+   * parsing the rest. Fields that need more than a tape lookup to produce their value, i.e. maps,
+   * enums, interfaces, adapters and custom value extract formatters, have no getter.
+   */
+  private void writeViewClass(JavaWriter writer) throws IOException {
+    boolean hasParentView = mParentInjectedClassName != null;
+    String viewClassName = getNestedClassName(mInjectedClassName, "View");
+    writer
+        .beginMethod(
+            viewClassName,
+            "view",
+            EnumSet.of(PUBLIC, STATIC),
+            Arrays.asList("com.instagram.common.json.JsonTape", "tape"),
+            null)
+        .emitStatement("return new %s(tape, tape.getRoot())", viewClassName)
+        .endMethod()
+        .emitEmptyLine()
+        .beginMethod(
+            viewClassName,
+            "view",
+            EnumSet.of(PUBLIC, STATIC),
+            Arrays.asList("byte[]", "inputBytes"),
+            Arrays.asList("IOException"))
+        .emitStatement("return view(com.instagram.common.json.JsonTape.build(inputBytes))")
+        .endMethod()
+        .emitEmptyLine()
+        .beginType(
+            viewClassName,
+            "class",
+            EnumSet.of(PUBLIC, STATIC),
+            hasParentView
+                ? mParentInjectedClassName
+                    + "."
+                    + getNestedClassName(mParentInjectedClassName, "View")
+                : null);
+
+    Map<TypeData, String> viewTypes = new LinkedHashMap<>();
+    for (Map.Entry<TypeData, List<String>> entry : getDispatchedFields().entrySet()) {
+      TypeData data = entry.getKey();
+      String viewType = getViewType(data);
+      if (viewType == null) {
+        continue;
+      }
+      viewTypes.put(data, viewType);
+      if (mOmitSomeMethodBodies) {
+        continue;
+      }
+      StringBuilder names = new StringBuilder("new byte[][] {");
+      for (int i = 0; i < entry.getValue().size(); i++) {
+        names
+            .append(i == 0 ? "" : ", ")
+            .append("com.instagram.common.json.JsonTape.utf8(")
+            .append(JavaWriter.stringLiteral(entry.getValue().get(i)))
+            .append(")");
+      }
+      writer.emitField(
+          "byte[][]",
+          getViewFieldNamesConstant(data),
+          EnumSet.of(PRIVATE, STATIC, FINAL),
+          names.append("}").toString());
+    }
+    if (!viewTypes.isEmpty()) {
+      writer.emitEmptyLine();
+    }
+
+    if (hasParentView) {
+      writer
+          .beginConstructor(
+              EnumSet.of(PUBLIC), "com.instagram.common.json.JsonTape", "tape", "int", "index")
+          .emitStatement("super(tape, index)")
+          .endConstructor();
+    } else {
+      writer
+          .emitField("com.instagram.common.json.JsonTape", "mTape", EnumSet.of(PROTECTED, FINAL))
+          .emitField("int", "mIndex", EnumSet.of(PROTECTED, FINAL))
+          .emitEmptyLine()
+          .beginConstructor(
+              EnumSet.of(PUBLIC), "com.instagram.common.json.JsonTape", "tape", "int", "index")
+          .emitStatement("mTape = tape")
+          .emitStatement("mIndex = index")
+          .endConstructor();
+    }
+
+    Set<String> getterNames = new HashSet<>();
+    for (Map.Entry<TypeData, String> entry : viewTypes.entrySet()) {
+      TypeData data = entry.getKey();
+      String baseName =
+          data.getGetterName() != null
+              ? data.getGetterName()
+              : AccessorMetadata.getGetterName(data.getMemberVariableName(), false);
+      String getterName = baseName;
+      for (int i = 2; !getterNames.add(getterName); i++) {
+        getterName = baseName + i;
+      }
+
+      writer
+          .emitEmptyLine()
+          .beginMethod(entry.getValue(), getterName, EnumSet.of(PUBLIC));
+      if (mOmitSomeMethodBodies) {
+        String viewType = entry.getValue();
+        writer
+            .emitStatement(
+                "return %s",
+                "boolean".equals(viewType)
+                    ? "false"
+                    : sPrimitiveTypes.containsValue(viewType) ? "0" : "null")
+            .endMethod();
+        continue;
+      }
+      writer.emitStatement(
+          "int index = mTape.getField(mIndex, %s)", getViewFieldNamesConstant(data));
+      if (data.getCollectionType() == TypeUtils.CollectionType.NOT_A_COLLECTION) {
+        writer.emitStatement("return %s", getViewValue(data, data.getParseType(), "index"));
+      } else {
+        String elementType = getViewElementType(data);
+        writer
+            .beginControlFlow(
+                "if (mTape.getType(index) != com.instagram.common.json.JsonTape.ARRAY)")
+            .emitStatement("return null")
+            .endControlFlow()
+            .emitStatement("%s values = new ArrayList<%s>()", entry.getValue(), elementType)
+            .beginControlFlow(
+                "for (int i = index + 1;\n"
+                    + "mTape.getType(i) != com.instagram.common.json.JsonTape.END;\n"
+                    + "i = mTape.skip(i))")
+            .emitStatement(
+                "%s value = %s",
+                elementType,
+                getViewValue(data, getBoxedParseType(data.getParseType()), "i"))
+            .beginControlFlow("if (value != null)")
+            .emitStatement("values.add(value)")
+            .endControlFlow()
+            .endControlFlow()
+            .emitStatement("return values");
+      }
+      writer.endMethod();
+    }
+    writer.endType().emitEmptyLine();
+  }
+
+  private String getViewFieldNamesConstant(TypeData data) {
+    return getSerializedFieldName(data).replaceFirst("FieldName(\\d*)$", "FieldNames$1");
   }
 
-  private void writeFieldAssignments(String simpleClassName, Messager messager, JavaWriter writer)
-      throws IOException {
-    if (mOmitSomeMethodBodies) {
-      return;
+  /** Returns the type a {@code View} getter returns for a field, or null if it has no getter. */
+  private @Nullable String getViewType(TypeData data) {
+    String valueExtractFormatter = data.getValueExtractFormatter().getFormatterString();
+    if (data.getJsonAdapterFromJsonMethod() != null
+        || !(valueExtractFormatter.isEmpty()
+            || JsonType.DEFAULT_VALUE_EXTRACT_FORMATTER.equals(valueExtractFormatter))) {
+      return null;
+    }
+    switch (data.getParseType()) {
+      case PARSABLE_OBJECT:
+        if (data.isInterface() || StringUtil.isNullOrEmpty(data.getParsableTypeParserClass())) {
+          return null;
+        }
+        break;
+      case ENUM_OBJECT:
+      case WILDCARD:
+      case UNSUPPORTED:
+        return null;
+      default:
+        break;
     }
+    switch (data.getCollectionType()) {
+      case NOT_A_COLLECTION:
+        String primitiveType = sPrimitiveTypes.get(data.getParseType());
+        return primitiveType != null ? primitiveType : getViewElementType(data);
+      case HASHMAP:
+        return null;
+      default:
+        return "List<" + getViewElementType(data) + ">";
+    }
+  }
 
-    for (Map.Entry<String, TypeData> entry : getIterator()) {
-      TypeData data = entry.getValue();
+  /** Returns the parse type of the boxed counterpart of a primitive, which can be null. */
+  private static TypeUtils.ParseType getBoxedParseType(TypeUtils.ParseType parseType) {
+    switch (parseType) {
+      case BOOLEAN:
+        return TypeUtils.ParseType.BOOLEAN_OBJECT;
+      case INTEGER:
+        return TypeUtils.ParseType.INTEGER_OBJECT;
+      case LONG:
+        return TypeUtils.ParseType.LONG_OBJECT;
+      case FLOAT:
+        return TypeUtils.ParseType.FLOAT_OBJECT;
+      case DOUBLE:
+        return TypeUtils.ParseType.DOUBLE_OBJECT;
+      default:
+        return parseType;
+    }
+  }
 
-      if (data.getDeserializeType() == TypeData.DeserializeType.FIELD) {
-        writer.beginControlFlow(
-            "if (parsedProperties[" + Integer.toString(data.getFieldIndex()) + "] != null)");
-        writer.emitStatement(
-            "instance.%s = (%s)%s",
-            data.getMemberVariableName(),
-            getTypeForField(data),
-            "parsedProperties[" + Integer.toString(data.getFieldIndex()) + "]");
-        writer.endControlFlow();
-      } else if (data.getDeserializeType() == TypeData.DeserializeType.SETTER) {
-        writer.beginControlFlow(
-            "if (parsedProperties[" + Integer.toString(data.getFieldIndex()) + "] != null)");
-        writer.emitStatement(
-            "instance.%s((%s)%s)",
-            data.getSetterName(),
-            getTypeForField(data),
-            "parsedProperties[" + Integer.toString(data.getFieldIndex()) + "]");
-        writer.endControlFlow();
-      }
+  private String getViewElementType(TypeData data) {
+    if (data.getParseType() == TypeUtils.ParseType.PARSABLE_OBJECT) {
+      String helperClassName =
+          data.getParsableTypeParserClass() + JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX;
+      return helperClassName + "." + getNestedClassName(helperClassName, "View");
     }
+    return sJavaTypes.get(data.getParseType());
   }
 
-  /** this should only be used for casting from a parsed instance to the required type */
-  private String getTypeForField(TypeData data) {
-    if (data.getParseType() == TypeUtils.ParseType.UNSUPPORTED) {
-      StringBuilder sb = new StringBuilder();
-      sb.append(data.getParsableType());
-      if (data.isWildcard() && data.isInterface() && mIsKotlin) {
-        sb.append("<?>");
+  /**
+   * Returns the expression that reads a value of a field from the tape entry at an index. Like the
+   * streaming parser, a field with {@link JsonField.TypeMapping#COERCED} mapping reads strings,
+   * numbers and booleans as its type, while one with {@link JsonField.TypeMapping#EXACT} mapping
+   * only reads values of its type.
+   */
+  private String getViewValue(TypeData data, TypeUtils.ParseType parseType, String index) {
+    if (data.getMapping() == JsonField.TypeMapping.COERCED) {
+      String scalar = "mTape.isScalar(" + index + ")";
+      switch (parseType) {
+        case BOOLEAN:
+          return "mTape.getValueAsBoolean(" + index + ")";
+        case INTEGER:
+          return "mTape.getValueAsInt(" + index + ")";
+        case LONG:
+          return "mTape.getValueAsLong(" + index + ")";
+        case FLOAT:
+          return "(float) mTape.getValueAsDouble(" + index + ")";
+        case DOUBLE:
+          return "mTape.getValueAsDouble(" + index + ")";
+        case BOOLEAN_OBJECT:
+          return "(" + scalar + "\n"
+              + "? Boolean.valueOf(mTape.getValueAsBoolean(" + index + ")) : null)";
+        case INTEGER_OBJECT:
+          return "(" + scalar + " ? Integer.valueOf(mTape.getValueAsInt(" + index + ")) : null)";
+        case LONG_OBJECT:
+          return "(" + scalar + " ? Long.valueOf(mTape.getValueAsLong(" + index + ")) : null)";
+        case FLOAT_OBJECT:
+          return "(" + scalar + "\n"
+              + "? Float.valueOf((float) mTape.getValueAsDouble(" + index + ")) : null)";
+        case DOUBLE_OBJECT:
+          return "(" + scalar + " ? Double.valueOf(mTape.getValueAsDouble(" + index + ")) : null)";
+        case STRING:
+          return "mTape.getValueAsString(" + index + ")";
+        default:
+          break;
       }
-      return sb.toString();
     }
-    if (data.getCollectionType() != TypeUtils.CollectionType.NOT_A_COLLECTION) {
-      String innerType = getJavaType(data);
-      String interfaceType = mapCollectionTypeToInterfaceType(data.getCollectionType());
-      if (TypeUtils.isMapType(data.getCollectionType())) {
-        return interfaceType + "<String, " + innerType + ">";
-      } else {
-        return interfaceType + "<" + innerType + ">";
-      }
-    } else {
-      return getJavaType(data);
+    String type = "mTape.getType(" + index + ")";
+    switch (parseType) {
+      case BOOLEAN:
+        return type + " == com.instagram.common.json.JsonTape.TRUE";
+      case BOOLEAN_OBJECT:
+        return "(" + type + " == com.instagram.common.json.JsonTape.TRUE\n"
+            + "|| " + type + " == com.instagram.common.json.JsonTape.FALSE\n"
+            + "? Boolean.valueOf(" + type + " == com.instagram.common.json.JsonTape.TRUE) : null)";
+      case INTEGER:
+        return "mTape.getInt(" + index + ")";
+      case LONG:
+        return "mTape.getLong(" + index + ")";
+      case FLOAT:
+        return "(float) mTape.getDouble(" + index + ")";
+      case DOUBLE:
+        return "mTape.getDouble(" + index + ")";
+      case INTEGER_OBJECT:
+        return "(" + type + " == com.instagram.common.json.JsonTape.NUMBER ? "
+            + "Integer.valueOf(mTape.getInt(" + index + ")) : null)";
+      case LONG_OBJECT:
+        return "(" + type + " == com.instagram.common.json.JsonTape.NUMBER ? "
+            + "Long.valueOf(mTape.getLong(" + index + ")) : null)";
+      case FLOAT_OBJECT:
+        return "(" + type + " == com.instagram.common.json.JsonTape.NUMBER ? "
+            + "Float.valueOf((float) mTape.getDouble(" + index + ")) : null)";
+      case DOUBLE_OBJECT:
+        return "(" + type + " == com.instagram.common.json.JsonTape.NUMBER ? "
+            + "Double.valueOf(mTape.getDouble(" + index + ")) : null)";
+      case STRING:
+        return "mTape.getString(" + index + ")";
+      default:
+        return "(" + type + " == com.instagram.common.json.JsonTape.OBJECT ? "
+            + "new " + getViewElementType(data) + "(mTape, " + index + ") : null)";
     }
   }
 
   /**
-   * This writes the if-else block for the fields in this class.
-   *
-   * <p>NOTE: This could be optimized further by building a radix trie, and building out the if-else
-   * block from traversing the radix trie.
+   * This writes the switch block that dispatches on the index of the field matched by {@code
+   * sFieldMatcher} for a strict class. Each case stores the parsed value into the local declared
+   * for the field by {@link #writeParsedLocalDeclarations}.
    */
   private void writeProcessFields(Messager messager, JavaWriter writer) throws IOException {
     if (mOmitSomeMethodBodies) {
@@ -625,31 +1957,23 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
     }
 
     boolean firstEntry = true;
-    for (Map.Entry<String, TypeData> entry : getIterator()) {
-      TypeData data = entry.getValue();
+    int fieldIndex = 0;
+    for (TypeData data : getDispatchedFields().keySet()) {
       String member = data.getMemberVariableName();
 
-      String condition = "\"" + data.getFieldName() + "\".equals(fieldName)";
-
-      for (String alternateFieldName : data.getAlternateFieldNames()) {
-        condition += "|| \"" + alternateFieldName + "\".equals(fieldName)";
-      }
-
       if (firstEntry) {
-        writer.beginControlFlow("if (" + condition + ")");
-      } else {
-        writer.nextControlFlow("else if (" + condition + ")");
+        writer.beginControlFlow("switch (fieldIndex)");
       }
+      writer.beginControlFlow("case " + fieldIndex++ + ":");
+      writeNeverPresentComment(writer, data);
 
       if (data.getCollectionType() != TypeUtils.CollectionType.NOT_A_COLLECTION) {
-        generateCollectionParser(messager, writer, data, member);
+        generateCollectionParser(messager, writer, data, member, null, null);
         CodeFormatter assignmentFormatter =
             data.getAssignmentFormatter().orIfEmpty(LOCAL_ASSIGNMENT_FORMATTER);
         writer.emitStatement(
             StrFormat.createStringFormatter(assignmentFormatter)
-                .addParam(
-                    "local_varname",
-                    "parsedProperties[" + Integer.toString(data.getFieldIndex()) + "]")
+                .addParam("local_varname", getParsedLocalName(data))
                 .addParam("extracted_value", "results")
                 .format());
       } else {
@@ -657,13 +1981,17 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
             data.getAssignmentFormatter().orIfEmpty(LOCAL_ASSIGNMENT_FORMATTER);
         writer.emitStatement(
             StrFormat.createStringFormatter(assignmentFormatter)
-                .addParam(
-                    "local_varname",
-                    "parsedProperties[" + Integer.toString(data.getFieldIndex()) + "]")
-                .addParam("extracted_value", generateExtractRvalue(data, messager, member))
+                .addParam("local_varname", getParsedLocalName(data))
+                .addParam("extracted_value", generateExtractRvalue(data, messager, member, null))
                 .format());
+        if (getParsedPrimitiveType(data) != null) {
+          writer.emitStatement("%s |= %s", getPresenceMaskName(data), getPresenceBit(data));
+        }
       }
 
+      writer.emitStatement("break");
+      writer.endControlFlow();
+
       firstEntry = false;
     }
 
@@ -673,36 +2001,36 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
   }
 
   /**
-   * This writes the if-else block for the fields in this class.
-   *
-   * <p>NOTE: This could be optimized further by building a radix trie, and building out the if-else
-   * block from traversing the radix trie.
+   * This writes the switch block that dispatches on the index of the field matched by {@code
+   * sFieldMatcher}. Each case assigns the parsed value to the instance and returns true. With
+   * {@code flags} set, the cases read the {@code mask}, {@code reuse} and {@code merge} parameters.
    */
-  private void writeFields(Messager messager, JavaWriter writer) throws IOException {
+  private void writeFields(Messager messager, JavaWriter writer, boolean flags)
+      throws IOException {
     if (mOmitSomeMethodBodies) {
       return;
     }
 
     boolean firstEntry = true;
-    for (Map.Entry<String, TypeData> entry : getIterator()) {
-      TypeData data = entry.getValue();
+    int fieldIndex = 0;
+    for (TypeData data : getDispatchedFields().keySet()) {
       String memberVariable = data.getMemberVariableName();
       String setterName = data.getSetterName();
 
-      String condition = "\"" + data.getFieldName() + "\".equals(fieldName)";
-
-      for (String alternateFieldName : data.getAlternateFieldNames()) {
-        condition += "|| \"" + alternateFieldName + "\".equals(fieldName)";
-      }
-
       if (firstEntry) {
-        writer.beginControlFlow("if (" + condition + ")");
-      } else {
-        writer.nextControlFlow("else if (" + condition + ")");
+        writer.beginControlFlow("switch (fieldIndex)");
       }
+      writer.beginControlFlow("case " + fieldIndex++ + ":");
+      writeNeverPresentComment(writer, data);
 
       if (data.getCollectionType() != TypeUtils.CollectionType.NOT_A_COLLECTION) {
-        generateCollectionParser(messager, writer, data, memberVariable);
+        generateCollectionParser(
+            messager,
+            writer,
+            data,
+            memberVariable,
+            flags && isCollectionReusable(data) ? "instance." + memberVariable : null,
+            flags && mIsMaskable ? "mask" : null);
         CodeFormatter assignmentFormatter =
             data.getAssignmentFormatter()
                 .orIfEmpty(
@@ -719,16 +2047,31 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
             data.getAssignmentFormatter()
                 .orIfEmpty(
                     mIsKotlin ? DEFAULT_ASSIGNMENT_FORMATTER_KOTLIN : DEFAULT_ASSIGNMENT_FORMATTER);
+        String rValue =
+            generateExtractRvalue(
+                data, messager, memberVariable, flags && mIsMaskable ? "mask" : null);
+        if (flags && isObjectMergeable(data)) {
+          // mergeFromJson merges into the object the field already holds.
+          rValue =
+              String.format(
+                  "(merge && instance.%s != null\n? %s%s.mergeFromJson(instance.%s, jp)\n: %s)",
+                  memberVariable,
+                  data.getParsableTypeParserClass(),
+                  JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX,
+                  memberVariable,
+                  rValue);
+        }
         writer.emitStatement(
             StrFormat.createStringFormatter(assignmentFormatter)
                 .addParam("object_varname", "instance")
                 .addParam("field_varname", memberVariable)
                 .addParam("field_varname_setter", setterName)
-                .addParam("extracted_value", generateExtractRvalue(data, messager, memberVariable))
+                .addParam("extracted_value", rValue)
                 .format());
       }
 
       writer.emitStatement("return true");
+      writer.endControlFlow();
 
       firstEntry = false;
     }
@@ -738,28 +2081,331 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
     }
   }
 
+  /**
+   * Returns the fields {@code sFieldMatcher} dispatches to, in the order of their field index in
+   * the matcher, each with the json field names that resolve to it.
+   *
+   * <p>A name that is listed by several fields resolves to the one declared first. Fields that are
+   * left without any names can never be matched and are not dispatched to. The remaining fields
+   * are in declaration order, unless there are recorded payloads for this class: then they are in
+   * the order they usually appear in the payloads, and fields that never appeared come last.
+   */
+  private Map<TypeData, List<String>> getDispatchedFields() {
+    if (mDispatchedFields != null) {
+      return mDispatchedFields;
+    }
+
+    Set<String> claimedFieldNames = new HashSet<>();
+    final List<TypeData> fields = new ArrayList<>();
+    Map<TypeData, List<String>> fieldNames = new HashMap<>();
+    for (Map.Entry<String, TypeData> entry : getIterator()) {
+      TypeData data = entry.getValue();
+      List<String> names = new ArrayList<>();
+      if (claimedFieldNames.add(data.getFieldName())) {
+        names.add(data.getFieldName());
+      }
+      for (String alternateFieldName : data.getAlternateFieldNames()) {
+        if (claimedFieldNames.add(alternateFieldName)) {
+          names.add(alternateFieldName);
+        }
+      }
+      if (!names.isEmpty()) {
+        fields.add(data);
+        fieldNames.put(data, names);
+      }
+    }
+
+    if (mPayloadProfile != null) {
+      // the sort is stable, so fields with the same position keep their declaration order.
+      Collections.sort(
+          fields,
+          new Comparator<TypeData>() {
+            @Override
+            public int compare(TypeData lhs, TypeData rhs) {
+              return Double.compare(
+                  mPayloadProfile.getAveragePosition(lhs), mPayloadProfile.getAveragePosition(rhs));
+            }
+          });
+    }
+
+    mDispatchedFields = new LinkedHashMap<>();
+    for (TypeData data : fields) {
+      mDispatchedFields.put(data, fieldNames.get(data));
+    }
+    return mDispatchedFields;
+  }
+
+  /** Returns the index {@code sFieldMatcher} resolves the names of a field to. */
+  private int getDispatchIndex(TypeData data) {
+    return new ArrayList<>(getDispatchedFields().keySet()).indexOf(data);
+  }
+
+  /** This marks a field that never appeared in the recorded payloads for this class. */
+  private void writeNeverPresentComment(JavaWriter writer, TypeData data) throws IOException {
+    if (mPayloadProfile != null && mPayloadProfile.getOccurrences(data) == 0) {
+      writer.emitSingleLineComment(
+          "never present in the %d recorded payloads", mPayloadProfile.getPayloadCount());
+    }
+  }
+
+  /**
+   * This writes the array of field names that {@code sFieldMatcher} is built from. The outer array
+   * is in the order of {@link #getDispatchedFields()}; each inner array holds the names that
+   * resolve to that field.
+   */
+  private String getFieldNamesInitializer() {
+    StringBuilder sb = new StringBuilder("new String[][] {");
+    boolean firstEntry = true;
+    for (List<String> names : getDispatchedFields().values()) {
+      sb.append(firstEntry ? "\n{" : ",\n{");
+      for (int i = 0; i < names.size(); i++) {
+        sb.append(i == 0 ? "" : ", ").append(JavaWriter.stringLiteral(names.get(i)));
+      }
+      sb.append('}');
+      firstEntry = false;
+    }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * This declares the index of the previously matched field ahead of the parse loop. {@code
+   * sFieldMatcher} uses it to guess the next field, which is a single comparison when the fields
+   * arrive in the same order as in earlier payloads.
+   */
+  private void writeFieldIndexDeclaration(JavaWriter writer) throws IOException {
+    if (!mOmitSomeMethodBodies) {
+      writer
+          .emitStatement(
+              "int fieldIndex = com.instagram.common.json.JsonFieldMatcher.UNKNOWN_FIELD")
+          .emitEmptyLine();
+    }
+  }
+
+  /**
+   * This writes {@code processSingleField}, which parses the value of a field given by name. It is
+   * how a subclass hands the fields it does not know to its superclass. With {@code flags} set, it
+   * takes the {@code reuse} and {@code merge} flags of {@code parseInto} and {@code mergeFromJson},
+   * so that the fields a subclass inherits are reused and merged like its own.
+   */
+  private void writeProcessSingleField(JavaWriter writer, boolean flags) throws IOException {
+    List<String> params =
+        new ArrayList<>(
+            Arrays.asList(mSimpleClassName, "instance", "String", "fieldName", "JsonParser", "jp"));
+    if (flags) {
+      params.addAll(Arrays.asList("boolean", "reuse", "boolean", "merge"));
+    }
+    writer.beginMethod(
+        "boolean",
+        "processSingleField",
+        EnumSet.of(getParseMethodVisibility(), STATIC),
+        params,
+        Arrays.asList("IOException"));
+    // if the field is not one of ours, we need to call the superclasses processSingleField method.
+    String processField =
+        getProcessFieldCall("sFieldMatcher.match(fieldName)", flags, "null, reuse, merge");
+    if (mOmitSomeMethodBodies) {
+      writer.emitStatement("return false");
+    } else if (mParentInjectedClassName != null) {
+      writer.emitStatement(
+          "return %s\n|| %s.processSingleField(instance, fieldName, jp%s)",
+          processField,
+          mParentInjectedClassName,
+          flags ? ", reuse, merge" : "");
+    } else {
+      writer.emitStatement("return %s", processField);
+    }
+    writer.endMethod().emitEmptyLine();
+  }
+
+  /**
+   * This writes the body of the parse loop for a non-strict class: match the current field name,
+   * advance to the value and hand it to {@code processField}. Names that are not ours are passed up
+   * to the superclass by name.
+   */
+  private void writeProcessNextField(
+      JavaWriter writer, boolean masked, boolean reuse, boolean merge) throws IOException {
+    if (mOmitSomeMethodBodies) {
+      writer
+          .emitStatement("String fieldName = jp.getCurrentName()")
+          .emitStatement("jp.nextToken()")
+          .emitStatement("processSingleField(instance, fieldName, jp)");
+      return;
+    }
+    writer.emitStatement("fieldIndex = sFieldMatcher.match(jp, fieldIndex)");
+    if (mParentInjectedClassName != null) {
+      writer
+          .beginControlFlow(
+              "if (fieldIndex == com.instagram.common.json.JsonFieldMatcher.UNKNOWN_FIELD)")
+          .emitStatement("String fieldName = jp.getCurrentName()")
+          .emitStatement("jp.nextToken()")
+          .emitStatement(
+              reuse || merge
+                  ? "%s.processSingleField(instance, fieldName, jp, %s, %s)"
+                  : "%s.processSingleField(instance, fieldName, jp)",
+              mParentInjectedClassName,
+              reuse,
+              merge)
+          .nextControlFlow("else")
+          .emitStatement("jp.nextToken()");
+      writeProcessField(writer, masked, reuse, merge);
+      writer.endControlFlow();
+    } else {
+      writer.emitStatement("jp.nextToken()");
+      writeProcessField(writer, masked, reuse, merge);
+    }
+  }
+
+  private void writeProcessField(JavaWriter writer, boolean masked, boolean reuse, boolean merge)
+      throws IOException {
+    if (masked) {
+      writer
+          .beginControlFlow("if (mask.includes(fieldIndex))")
+          .emitStatement(getProcessFieldCall("fieldIndex", true, "mask, false, false"))
+          .endControlFlow();
+    } else {
+      writer.emitStatement(
+          getProcessFieldCall(
+              "fieldIndex", reuse || merge, String.format("null, %s, %s", reuse, merge)));
+    }
+  }
+
+  /**
+   * This writes {@code processField}, which parses the value of the field at an index of {@code
+   * sFieldMatcher}. The plain variant is all {@code parseFromJson(jp)} needs. The variant with
+   * {@code flags} set also takes the mask of a masked parse and the {@code reuse} and {@code merge}
+   * flags of {@code parseInto} and {@code mergeFromJson}; it is only written when some field reads
+   * them, see {@link #hasFlaggedFields()}.
+   */
+  private void writeProcessFieldMethod(
+      final Messager messager, JavaWriter writer, final boolean flags) throws IOException {
+    List<String> params =
+        new ArrayList<>(
+            Arrays.asList(mSimpleClassName, "instance", "int", "fieldIndex", "JsonParser", "jp"));
+    if (flags) {
+      params.addAll(
+          Arrays.asList(
+              "com.instagram.common.json.JsonFieldMask<" + mSimpleClassName + ">",
+              "mask",
+              "boolean",
+              "reuse",
+              "boolean",
+              "merge"));
+    }
+    writer
+        .beginMethod(
+            "boolean",
+            "processField",
+            EnumSet.of(PRIVATE, STATIC),
+            params,
+            Arrays.asList("IOException"))
+        .emitWithGenerator(
+            new JavaWriter.JavaGenerator() {
+              @Override
+              public void emitJava(JavaWriter writer) throws IOException {
+                JsonParserClassData.this.writeFields(messager, writer, flags);
+                writer.emitStatement("return false");
+              }
+            })
+        .endMethod()
+        .emitEmptyLine();
+  }
+
+  /**
+   * Returns a call to {@code processField} for the field at {@code fieldIndex}. The {@code flags}
+   * arguments are only passed, to the variant taking them, if {@code flagged} is set and some field
+   * reads them; otherwise the call goes to the plain variant.
+   */
+  private String getProcessFieldCall(String fieldIndex, boolean flagged, String flags) {
+    if (flagged && hasFlaggedFields()) {
+      return String.format("processField(instance, %s, jp, %s)", fieldIndex, flags);
+    }
+    return String.format("processField(instance, %s, jp)", fieldIndex);
+  }
+
+  /**
+   * Returns true if parsing some field depends on the mask or on the {@code reuse} and {@code
+   * merge} flags: it holds a collection that {@code parseInto} reuses, an object that {@code
+   * mergeFromJson} merges into, or, in a class with field masks, an object that takes a nested
+   * mask.
+   */
+  private boolean hasFlaggedFields() {
+    for (TypeData data : getDispatchedFields().keySet()) {
+      if (isCollectionReusable(data)
+          || isObjectMergeable(data)
+          || (mIsMaskable && isObjectMaskable(data))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the collection a field already holds can be cleared and filled again by {@code
+   * parseInto}, instead of being replaced.
+   */
+  private boolean isCollectionReusable(TypeData data) {
+    return data.getCollectionType() != TypeUtils.CollectionType.NOT_A_COLLECTION
+        && data.getAssignmentFormatter().isEmpty()
+        && !mIsKotlin;
+  }
+
+  /**
+   * Returns true if the object a field already holds can be merged into by {@code mergeFromJson},
+   * instead of being replaced.
+   */
+  private boolean isObjectMergeable(TypeData data) {
+    return data.getCollectionType() == TypeUtils.CollectionType.NOT_A_COLLECTION
+        && hasHelperParser(data)
+        && data.isMergeable()
+        && data.getAssignmentFormatter().isEmpty()
+        && !mIsKotlin;
+  }
+
+  /**
+   * This writes the code to parse a collection into {@code results}. If {@code reusable} is not
+   * null, it is the collection the field already holds, which is cleared and filled again when
+   * {@code reuse} is set. If {@code mask} is not null, it is the mask whose nested masks are passed
+   * on to the elements.
+   */
   private void generateCollectionParser(
-      Messager messager, JavaWriter writer, TypeData data, String member) throws IOException {
+      Messager messager,
+      JavaWriter writer,
+      TypeData data,
+      String member,
+      @Nullable String reusable,
+      @Nullable String mask)
+      throws IOException {
     if (TypeUtils.isMapType(data.getCollectionType())) {
-      generateMapParser(messager, writer, data, member);
+      generateMapParser(messager, writer, data, member, reusable, mask);
     } else {
-      generateArrayParser(messager, writer, data, member);
+      generateArrayParser(messager, writer, data, member, reusable, mask);
     }
   }
 
   /** This writes the code to properly parse an array. */
   private void generateArrayParser(
-      Messager messager, JavaWriter writer, TypeData data, String member) throws IOException {
+      Messager messager,
+      JavaWriter writer,
+      TypeData data,
+      String member,
+      @Nullable String reusable,
+      @Nullable String mask)
+      throws IOException {
     String innerType = getJavaType(data);
     String interfaceType = mapCollectionTypeToInterfaceType(data.getCollectionType());
     String concreteType = mapCollectionTypeToConcreteType(data.getCollectionType());
 
     writer
         .emitStatement("%s<%s> results = null", interfaceType, innerType)
-        .beginControlFlow("if (jp.getCurrentToken() == JsonToken.START_ARRAY)")
-        .emitStatement("results = new %s<%s>()", concreteType, innerType)
+        .beginControlFlow("if (jp.getCurrentToken() == JsonToken.START_ARRAY)");
+    writeCreateCollection(
+        writer,
+        reusable,
+        String.format("new %s<%s>(%s)", concreteType, innerType, getInitialCapacity(data)));
+    writer
         .beginControlFlow("while (jp.nextToken() != JsonToken.END_ARRAY)")
-        .emitStatement("%s parsed = %s", innerType, generateExtractRvalue(data, messager, member))
+        .emitStatement(
+            "%s parsed = %s", innerType, generateExtractRvalue(data, messager, member, mask))
         .beginControlFlow("if (parsed != null)")
         .emitStatement("results.add(parsed)")
         .endControlFlow()
@@ -768,7 +2414,12 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
   }
 
   private void generateMapParser(
-      Messager messager, JavaWriter writer, TypeData valueTypeData, String member)
+      Messager messager,
+      JavaWriter writer,
+      TypeData valueTypeData,
+      String member,
+      @Nullable String reusable,
+      @Nullable String mask)
       throws IOException {
     TypeData keyTypeData = new TypeData();
     keyTypeData.setParseType(TypeUtils.ParseType.STRING);
@@ -781,8 +2432,17 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
 
     writer
         .emitStatement("%s<%s, %s> results = null", interfaceType, keyType, valueType)
-        .beginControlFlow("if (jp.getCurrentToken() == JsonToken.START_OBJECT)")
-        .emitStatement("results = new %s<%s, %s>()", concreteType, keyType, valueType)
+        .beginControlFlow("if (jp.getCurrentToken() == JsonToken.START_OBJECT)");
+    writeCreateCollection(
+        writer,
+        reusable,
+        String.format(
+            "new %s<%s, %s>(%s)",
+            concreteType,
+            keyType,
+            valueType,
+            getInitialCapacity(valueTypeData)));
+    writer
         .beginControlFlow("while (jp.nextToken() != JsonToken.END_OBJECT)")
         .emitStatement("%s parsedKey = jp.getText()", keyType)
         .emitStatement("jp.nextToken()")
@@ -791,7 +2451,7 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
         .nextControlFlow("else")
         .emitStatement(
             "%s parsedValue = %s",
-            valueType, generateExtractRvalue(valueTypeData, messager, member))
+            valueType, generateExtractRvalue(valueTypeData, messager, member, mask))
         .beginControlFlow("if (parsedValue != null)")
         .emitStatement("results.put(parsedKey, parsedValue)")
         .endControlFlow()
@@ -800,11 +2460,47 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
         .endControlFlow();
   }
 
+  private void writeCreateCollection(
+      JavaWriter writer, @Nullable String reusable, String newCollection) throws IOException {
+    if (reusable == null) {
+      writer.emitStatement("results = %s", newCollection);
+      return;
+    }
+    writer
+        .beginControlFlow("if (reuse && " + reusable + " != null)")
+        .emitStatement("results = %s", reusable)
+        .emitStatement("results.clear()")
+        .nextControlFlow("else")
+        .emitStatement("results = %s", newCollection)
+        .endControlFlow();
+  }
+
+  /**
+   * Returns the constructor argument that sizes a collection for the number of elements the field
+   * usually has in the recorded payloads, or an empty string to use the default capacity.
+   */
+  private String getInitialCapacity(TypeData data) {
+    int size = mPayloadProfile == null ? 0 : mPayloadProfile.getAverageContainerSize(data);
+    if (size == 0) {
+      return "";
+    }
+    switch (data.getCollectionType()) {
+      case HASHMAP:
+      case SET:
+        // hash based collections resize once they are three quarters full.
+        return Integer.toString(size * 4 / 3 + 1);
+      default:
+        return Integer.toString(size);
+    }
+  }
+
   /**
    * We allow consumers of this library to override how we interact with the jackson to get the
-   * value. This generates the code to generate the rvalue expression.
+   * value. This generates the code to generate the rvalue expression. If {@code mask} is not null,
+   * a {@code JsonType} value that can be masked is parsed with the part of it that applies.
    */
-  private String generateExtractRvalue(TypeData data, Messager messager, String member) {
+  private String generateExtractRvalue(
+      TypeData data, Messager messager, String member, @Nullable String mask) {
     CodeFormatter valueExtractFormatter = data.getValueExtractFormatter();
 
     if (valueExtractFormatter.isEmpty()) {
@@ -817,13 +2513,44 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
             mSimpleClassName,
             member);
       }
-      if (data.getMapping() == JsonField.TypeMapping.EXACT) {
+      if (data.getPrimitiveArrayType() != null) {
+        valueExtractFormatter =
+            VALUE_EXTRACT.forString(
+                "com.instagram.common.json.JsonPrimitiveArrays.parse"
+                    + capitalize(data.getPrimitiveArrayType())
+                    + "Array(${parser_object}, "
+                    + "com.instagram.common.json.annotation.JsonField.TypeMapping."
+                    + data.getMapping()
+                    + ")");
+      } else if (data.isInterned()) {
+        valueExtractFormatter =
+            data.getMapping() == JsonField.TypeMapping.EXACT
+                ? INTERNED_STRING_EXACT_EXTRACT
+                : INTERNED_STRING_COERCED_EXTRACT;
+      } else if (data.getMapping() == JsonField.TypeMapping.EXACT) {
         valueExtractFormatter = sExactFormatters.get(data.getJsonAdapterOrParseType());
       } else if (data.getMapping() == JsonField.TypeMapping.COERCED) {
         valueExtractFormatter = sCoercedFormatters.get(data.getJsonAdapterOrParseType());
       }
     }
 
+    if (data.isLazy()) {
+      return String.format(
+          "(jp.getCurrentToken() == JsonToken.START_OBJECT ? new %s(jp) : null)",
+          getLazyValueClassName(data));
+    }
+
+    if (mask != null && isObjectMaskable(data)) {
+      // pass on the part of the mask that applies to the value, if there is one.
+      return String.format(
+          "%s%s.parseFromJson(jp, com.instagram.common.json.JsonFieldMask.<%s>nested(%s, %d))",
+          data.getParsableTypeParserClass(),
+          JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX,
+          getJavaType(data),
+          mask,
+          getDispatchIndex(data));
+    }
+
     StrFormat strFormat =
         StrFormat.createStringFormatter(valueExtractFormatter)
             .addParam("parser_object", "jp")
@@ -871,6 +2598,64 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
             + mQualifiedClassName);
   }
 
+  private static void writeSerializeStatements(
+      JavaWriter writer, @Nullable String fieldNameStatement, String valueStatement)
+      throws IOException {
+    if (fieldNameStatement != null) {
+      writer.emitStatement(fieldNameStatement);
+    }
+    writer.emitStatement(valueStatement);
+  }
+
+  /**
+   * Returns the names of the {@code SerializedString} constants that hold the pre-encoded json
+   * field name of each field. Jackson can copy a pre-encoded name straight into its output buffer,
+   * instead of quoting, escaping and encoding the name for every object it writes.
+   */
+  private Map<TypeData, String> getSerializedFieldNames() {
+    if (mSerializedFieldNames != null) {
+      return mSerializedFieldNames;
+    }
+
+    mSerializedFieldNames = new LinkedHashMap<>();
+    Set<String> constantNames = new HashSet<>();
+    for (Map.Entry<String, TypeData> entry : getIterator()) {
+      TypeData data = entry.getValue();
+      StringBuilder sb = new StringBuilder("s");
+      for (String part : data.getFieldName().split("[^A-Za-z0-9]+")) {
+        if (!part.isEmpty()) {
+          sb.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+        }
+      }
+      String constantName = sb.append("FieldName").toString();
+      for (int i = 2; !constantNames.add(constantName); i++) {
+        constantName = sb.toString() + i;
+      }
+      mSerializedFieldNames.put(data, constantName);
+    }
+    return mSerializedFieldNames;
+  }
+
+  private String getSerializedFieldName(TypeData data) {
+    return getSerializedFieldNames().get(data);
+  }
+
+  /** This writes the {@code SerializedString} constants for the json field names. */
+  private void writeSerializedFieldNames(JavaWriter writer) throws IOException {
+    for (Map.Entry<TypeData, String> entry : getSerializedFieldNames().entrySet()) {
+      writer.emitField(
+          "com.fasterxml.jackson.core.io.SerializedString",
+          entry.getValue(),
+          EnumSet.of(PRIVATE, STATIC, FINAL),
+          "new com.fasterxml.jackson.core.io.SerializedString("
+              + JavaWriter.stringLiteral(entry.getKey().getFieldName())
+              + ")");
+    }
+    if (!getSerializedFieldNames().isEmpty()) {
+      writer.emitEmptyLine();
+    }
+  }
+
   /** This writes the code to serialize this class to a JsonGenerator. */
   private void writeSerializeCalls(Messager messager, JavaWriter writer) throws IOException {
     if (mOmitSomeMethodBodies) {
@@ -913,7 +2698,7 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
           String listType = getJavaType(entry.getValue());
           writer
               .beginControlFlow("if (object." + accessor + " != null)")
-              .emitStatement("generator.writeFieldName(\"%s\")", valueTypeData.getFieldName())
+              .emitStatement("generator.writeFieldName(%s)", getSerializedFieldName(valueTypeData))
               .emitStatement("generator.writeStartArray()")
               .beginControlFlow(
                   "for ("
@@ -969,7 +2754,7 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
 
           writer
               .beginControlFlow("if (object." + accessor + " != null)")
-              .emitStatement("generator.writeFieldName(\"%s\")", valueTypeData.getFieldName())
+              .emitStatement("generator.writeFieldName(%s)", getSerializedFieldName(valueTypeData))
               .emitStatement("generator.writeStartObject()")
               .beginControlFlow(
                   "for (Map.Entry<"
@@ -992,7 +2777,28 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
         }
 
       } else {
-        if (valueTypeData.getParseType() == TypeUtils.ParseType.PARSABLE_OBJECT) {
+        if (valueTypeData.isLazy()) {
+          // a value that was never read is copied as it is, without parsing it.
+          writer
+              .beginControlFlow("if (object." + accessor + " != null)")
+              .emitStatement("generator.writeFieldName(%s)", getSerializedFieldName(valueTypeData))
+              .beginControlFlow("if (!object." + accessor + ".writeUnparsedTo(generator))")
+              .emitStatement(
+                  "%s%s.serializeToJson(generator, object.%s.get(), true)",
+                  valueTypeData.getParsableTypeParserClass(),
+                  JsonAnnotationProcessorConstants.HELPER_CLASS_SUFFIX,
+                  accessor)
+              .endControlFlow()
+              .endControlFlow();
+        } else if (valueTypeData.getPrimitiveArrayType() != null && serializeCode.isEmpty()) {
+          writer
+              .beginControlFlow("if (object." + accessor + " != null)")
+              .emitStatement("generator.writeFieldName(%s)", getSerializedFieldName(valueTypeData))
+              .emitStatement(
+                  "com.instagram.common.json.JsonPrimitiveArrays.write(generator, object.%s)",
+                  accessor)
+              .endControlFlow();
+        } else if (valueTypeData.getParseType() == TypeUtils.ParseType.PARSABLE_OBJECT) {
           if (serializeCode.isEmpty()) {
             if (valueTypeData.isInterface()) {
               Console.error(
@@ -1007,7 +2813,7 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
           }
           writer
               .beginControlFlow("if (object." + accessor + " != null)")
-              .emitStatement("generator.writeFieldName(\"%s\")", valueTypeData.getFieldName())
+              .emitStatement("generator.writeFieldName(%s)", getSerializedFieldName(valueTypeData))
               .emitStatement(
                   StrFormat.createStringFormatter(serializeCode)
                       .addParam("generator_object", "generator")
@@ -1029,6 +2835,11 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
           } else {
             codeFormatter = mScalarSerializeCalls.get(valueTypeData.getJsonAdapterOrParseType());
           }
+          // a custom serializer writes the field name itself.
+          String fieldNameStatement =
+              serializeCode.isEmpty()
+                  ? "generator.writeFieldName(" + getSerializedFieldName(valueTypeData) + ")"
+                  : null;
           serializeCode = serializeCode.orIfEmpty(codeFormatter);
 
           String statement =
@@ -1047,14 +2858,13 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
             case LONG:
             case FLOAT:
             case DOUBLE:
-              writer.emitStatement(statement);
+              writeSerializeStatements(writer, fieldNameStatement, statement);
               break;
 
             default:
-              writer
-                  .beginControlFlow("if (object." + accessor + " != null)")
-                  .emitStatement(statement)
-                  .endControlFlow();
+              writer.beginControlFlow("if (object." + accessor + " != null)");
+              writeSerializeStatements(writer, fieldNameStatement, statement);
+              writer.endControlFlow();
           }
         }
       }
@@ -1109,27 +2919,6 @@ public class JsonParserClassData extends ProcessorClassData<String, TypeData> {
     return String.valueOf(str.charAt(0)).toUpperCase(Locale.getDefault()) + str.substring(1);
   }
 
-  private static String getScalarWriteMethodName(TypeUtils.ParseType parseType) {
-    switch (parseType) {
-      case BOOLEAN:
-      case BOOLEAN_OBJECT:
-        return "writeBooleanField";
-      case INTEGER:
-      case INTEGER_OBJECT:
-      case LONG:
-      case LONG_OBJECT:
-      case FLOAT:
-      case FLOAT_OBJECT:
-      case DOUBLE:
-      case DOUBLE_OBJECT:
-        return "writeNumberField";
-      case STRING:
-        return "writeStringField";
-      default:
-        return null;
-    }
-  }
-
   private static String getCollectionWriteMethodName(TypeUtils.ParseType parseType) {
     switch (parseType) {
       case BOOLEAN:
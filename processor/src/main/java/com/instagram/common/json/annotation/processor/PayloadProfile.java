@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * What a set of recorded payloads of one {@link com.instagram.common.json.annotation.JsonType}
+ * tells us about its fields: how often each json field name shows up, where in the object it
+ * usually appears and how many elements its value has when it is an array or an object.
+ *
+ * <p>Payloads are read from {@code <profile directory>/<qualified class name>/}. Every {@code
+ * .json} file in there holds either one object or an array of objects.
+ */
+class PayloadProfile {
+  /** Collections are never pre-sized beyond this, whatever the payloads say. */
+  private static final int MAX_PRESIZE = 1024;
+
+  static class FieldStats {
+    int occurrences;
+    long positionSum;
+    int containerCount;
+    long containerSizeSum;
+  }
+
+  private final Map<String, FieldStats> mFieldStats = new HashMap<>();
+  private int mPayloadCount;
+
+  /**
+   * Reads the payloads recorded for a class. Returns null if there is no directory for the class
+   * or it holds no payloads.
+   */
+  static @Nullable PayloadProfile load(File profileDirectory, String qualifiedClassName)
+      throws IOException {
+    File[] files = new File(profileDirectory, qualifiedClassName).listFiles();
+    if (files == null) {
+      return null;
+    }
+    // read the files in a stable order so the generated code does not depend on the file system.
+    Arrays.sort(files);
+
+    PayloadProfile profile = new PayloadProfile();
+    JsonFactory factory = new JsonFactory();
+    for (File file : files) {
+      if (!file.isFile() || !file.getName().endsWith(".json")) {
+        continue;
+      }
+      JsonParser jp = factory.createParser(file);
+      try {
+        JsonToken token = jp.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+          while (jp.nextToken() != JsonToken.END_ARRAY) {
+            profile.recordPayload(jp);
+          }
+        } else {
+          profile.recordPayload(jp);
+        }
+      } finally {
+        jp.close();
+      }
+    }
+    return profile.mPayloadCount == 0 ? null : profile;
+  }
+
+  private void recordPayload(JsonParser jp) throws IOException {
+    if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+      jp.skipChildren();
+      return;
+    }
+    mPayloadCount++;
+
+    int position = 0;
+    while (jp.nextToken() != JsonToken.END_OBJECT) {
+      FieldStats stats = mFieldStats.get(jp.getCurrentName());
+      if (stats == null) {
+        stats = new FieldStats();
+        mFieldStats.put(jp.getCurrentName(), stats);
+      }
+      stats.occurrences++;
+      stats.positionSum += position++;
+
+      JsonToken value = jp.nextToken();
+      if (value == JsonToken.START_ARRAY || value == JsonToken.START_OBJECT) {
+        JsonToken end = value == JsonToken.START_ARRAY ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+        int size = 0;
+        for (JsonToken token = jp.nextToken(); token != end; token = jp.nextToken()) {
+          if (token == JsonToken.FIELD_NAME) {
+            token = jp.nextToken();
+          }
+          jp.skipChildren();
+          size++;
+        }
+        stats.containerCount++;
+        stats.containerSizeSum += size;
+      }
+    }
+  }
+
+  /** Returns the number of payloads that were read. */
+  int getPayloadCount() {
+    return mPayloadCount;
+  }
+
+  /** Returns the number of payloads any of the given json field names showed up in. */
+  int getOccurrences(TypeData data) {
+    int occurrences = 0;
+    for (FieldStats stats : getFieldStats(data)) {
+      occurrences += stats.occurrences;
+    }
+    return occurrences;
+  }
+
+  /**
+   * Returns the average position of the field among the fields of the payloads it showed up in,
+   * or {@link Double#MAX_VALUE} if it never showed up.
+   */
+  double getAveragePosition(TypeData data) {
+    int occurrences = 0;
+    long positionSum = 0;
+    for (FieldStats stats : getFieldStats(data)) {
+      occurrences += stats.occurrences;
+      positionSum += stats.positionSum;
+    }
+    return occurrences == 0 ? Double.MAX_VALUE : (double) positionSum / occurrences;
+  }
+
+  /**
+   * Returns the average number of elements of the field's value when it was an array or an
+   * object, rounded up, or 0 if it never was.
+   */
+  int getAverageContainerSize(TypeData data) {
+    int containerCount = 0;
+    long containerSizeSum = 0;
+    for (FieldStats stats : getFieldStats(data)) {
+      containerCount += stats.containerCount;
+      containerSizeSum += stats.containerSizeSum;
+    }
+    if (containerCount == 0) {
+      return 0;
+    }
+    return (int) Math.min(MAX_PRESIZE, (containerSizeSum + containerCount - 1) / containerCount);
+  }
+
+  private FieldStats[] getFieldStats(TypeData data) {
+    String[] alternateFieldNames = data.getAlternateFieldNames();
+    FieldStats[] result = new FieldStats[alternateFieldNames.length + 1];
+    int count = 0;
+    FieldStats stats = mFieldStats.get(data.getFieldName());
+    if (stats != null) {
+      result[count++] = stats;
+    }
+    for (String alternateFieldName : alternateFieldNames) {
+      stats = mFieldStats.get(alternateFieldName);
+      if (stats != null) {
+        result[count++] = stats;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+}
@@ -107,6 +107,22 @@ class TypeData {
 
   private boolean mIsNullable;
 
+  private boolean mIsLazy;
+
+  private boolean mIsInterned;
+
+  /** Whether the helper of the parsable type has a {@code deepCopy} method. */
+  private boolean mIsCopyable;
+
+  /** Whether the helper of the parsable type has a {@code mergeFromJson} method. */
+  private boolean mIsMergeable;
+
+  /** Whether the helper of the parsable type has a {@code parseFromJson} that takes a mask. */
+  private boolean mIsMaskable;
+
+  /** The element type of a primitive array field, e.g. {@code int}. */
+  private String mPrimitiveArrayType;
+
   private int mFieldIndex;
 
   DeserializeType getDeserializeType() {
@@ -341,4 +357,58 @@ class TypeData {
   public void setIsNullable(boolean nullable) {
     mIsNullable = nullable;
   }
+
+  /** Returns true if the field holds a {@code JsonLazyValue} of its parsable type. */
+  public boolean isLazy() {
+    return mIsLazy;
+  }
+
+  public void setIsLazy(boolean lazy) {
+    mIsLazy = lazy;
+  }
+
+  /** Returns true if string values are read through the shared {@code JsonStringPool}. */
+  public boolean isInterned() {
+    return mIsInterned;
+  }
+
+  public void setIsInterned(boolean interned) {
+    mIsInterned = interned;
+  }
+
+  /** Returns the element type of a primitive array field, or null if the field is not one. */
+  public String getPrimitiveArrayType() {
+    return mPrimitiveArrayType;
+  }
+
+  public void setPrimitiveArrayType(String primitiveArrayType) {
+    mPrimitiveArrayType = primitiveArrayType;
+  }
+
+  /** Returns true if the helper of the parsable type can merge json into an existing instance. */
+  public boolean isMergeable() {
+    return mIsMergeable;
+  }
+
+  public void setIsMergeable(boolean mergeable) {
+    mIsMergeable = mergeable;
+  }
+
+  /** Returns true if the helper of the parsable type can parse with a field mask. */
+  public boolean isMaskable() {
+    return mIsMaskable;
+  }
+
+  public void setIsMaskable(boolean maskable) {
+    mIsMaskable = maskable;
+  }
+
+  /** Returns true if the helper of the parsable type can copy an instance of it. */
+  public boolean isCopyable() {
+    return mIsCopyable;
+  }
+
+  public void setIsCopyable(boolean copyable) {
+    mIsCopyable = copyable;
+  }
 }
@@ -7,7 +7,10 @@
 
 package com.instagram.common.json.annotation.processor;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -20,7 +23,9 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
+import com.instagram.common.json.JsonElementConsumer;
 import com.instagram.common.json.JsonHelper;
+import com.instagram.common.json.JsonStringPool;
 import com.instagram.common.json.annotation.processor.dependent.TypeFormatterImportsContainerUUT;
 import com.instagram.common.json.annotation.processor.dependent.TypeFormatterImportsContainerUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.parent.TypeFormatterImportsCompanionUUT;
@@ -38,19 +43,32 @@ import com.instagram.common.json.annotation.processor.uut.FormatterUUT;
 import com.instagram.common.json.annotation.processor.uut.FormatterUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.ImportsUUT;
 import com.instagram.common.json.annotation.processor.uut.ImportsUUT__JsonHelper;
+import com.instagram.common.json.annotation.processor.uut.InternUUT;
+import com.instagram.common.json.annotation.processor.uut.InternUUT__JsonHelper;
+import com.instagram.common.json.annotation.processor.uut.LazyUUT;
+import com.instagram.common.json.annotation.processor.uut.LazyUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.MapUUT;
 import com.instagram.common.json.annotation.processor.uut.MapUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.PostprocessingUUT;
 import com.instagram.common.json.annotation.processor.uut.PostprocessingUUT__JsonHelper;
+import com.instagram.common.json.annotation.processor.uut.PrimitiveArrayUUT;
+import com.instagram.common.json.annotation.processor.uut.PrimitiveArrayUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT;
+import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT_SubobjectParseUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.StrictListParseUUT;
 import com.instagram.common.json.annotation.processor.uut.StrictListParseUUT__JsonHelper;
+import com.instagram.common.json.annotation.processor.uut.SubclassOfSimpleParseUUT;
+import com.instagram.common.json.annotation.processor.uut.SubclassOfSimpleParseUUT__JsonHelper;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -509,6 +527,479 @@ public class DeserializeTest {
     assertEquals(value, uut.getNameField());
   }
 
+  @Test
+  public void parseFromInputs() throws IOException {
+    String inputString = "{\"" + AlternateFieldUUT.FIELD_NAME + "\":\"caf\u00e9 \u2603\"}";
+    byte[] inputBytes = inputString.getBytes("UTF-8");
+    byte[] paddedBytes = new byte[inputBytes.length + 4];
+    System.arraycopy(inputBytes, 0, paddedBytes, 2, inputBytes.length);
+
+    assertEquals(
+        "caf\u00e9 \u2603", AlternateFieldUUT__JsonHelper.parseFromJson(inputString).getNameField());
+    assertEquals(
+        "caf\u00e9 \u2603", AlternateFieldUUT__JsonHelper.parseFromJson(inputBytes).getNameField());
+    assertEquals(
+        "caf\u00e9 \u2603",
+        AlternateFieldUUT__JsonHelper.parseFromJson(paddedBytes, 2, inputBytes.length)
+            .getNameField());
+    assertEquals(
+        "caf\u00e9 \u2603",
+        AlternateFieldUUT__JsonHelper.parseFromJson(new ByteArrayInputStream(inputBytes))
+            .getNameField());
+    assertEquals(
+        "caf\u00e9 \u2603",
+        AlternateFieldUUT__JsonHelper.parseFromJson(new StringReader(inputString)).getNameField());
+  }
+
+  @Test
+  public void parseArrayElements() throws IOException {
+    String inputString =
+        "[{\"" + SimpleParseUUT.INT_FIELD_NAME + "\":1},"
+            + "null,"
+            + "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\":2}]";
+
+    JsonParser jp = new JsonFactory().createParser(inputString);
+    jp.nextToken();
+    final List<Integer> consumed = new ArrayList<>();
+    SimpleParseUUT__JsonHelper.forEachInArray(
+        jp,
+        new JsonElementConsumer<SimpleParseUUT>() {
+          @Override
+          public void accept(SimpleParseUUT element) {
+            consumed.add(element.intField);
+          }
+        });
+    assertEquals(Arrays.asList(1, 2), consumed);
+
+    jp = new JsonFactory().createParser(inputString);
+    jp.nextToken();
+    Iterator<SimpleParseUUT> iterator = SimpleParseUUT__JsonHelper.iterateArray(jp);
+    assertTrue(iterator.hasNext());
+    assertEquals(1, iterator.next().intField);
+    assertEquals(2, iterator.next().intField);
+    assertFalse(iterator.hasNext());
+
+    jp = new JsonFactory().createParser("{}");
+    jp.nextToken();
+    assertFalse(SimpleParseUUT__JsonHelper.iterateArray(jp).hasNext());
+  }
+
+  @Test
+  public void parseWithFieldMask() throws IOException {
+    String inputString =
+        "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\":1,"
+            + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\":\"value\","
+            + "\"" + SimpleParseUUT.SUBOBJECT_FIELD_NAME + "\":{"
+            + "\"" + SimpleParseUUT.SubobjectParseUUT.INT_FIELD_NAME + "\":2}}";
+
+    JsonParser jp = new JsonFactory().createParser(inputString);
+    jp.nextToken();
+    SimpleParseUUT uut =
+        SimpleParseUUT__JsonHelper.parseFromJson(
+            jp,
+            SimpleParseUUT__JsonHelper.fields(
+                SimpleParseUUT__JsonHelper.INT,
+                SimpleParseUUT__JsonHelper.SUBOBJECT.with(
+                    SimpleParseUUT_SubobjectParseUUT__JsonHelper.fields())));
+    assertEquals(1, uut.intField);
+    assertNull(uut.stringField);
+    assertEquals(0, uut.subobjectField.intField);
+
+    jp = new JsonFactory().createParser(inputString);
+    jp.nextToken();
+    uut =
+        SimpleParseUUT__JsonHelper.parseFromJson(
+            jp,
+            SimpleParseUUT__JsonHelper.fields(
+                SimpleParseUUT__JsonHelper.STRING, SimpleParseUUT__JsonHelper.SUBOBJECT));
+    assertEquals(0, uut.intField);
+    assertEquals("value", uut.stringField);
+    assertEquals(2, uut.subobjectField.intField);
+  }
+
+  @Test
+  public void readWithView() throws IOException {
+    String inputString =
+        "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\": -12,"
+            + "\"" + SimpleParseUUT.FLOAT_FIELD_NAME + "\": 1.5e1,"
+            + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\": \"caf\u00e9 \\\"\\u00e9\\\"\","
+            + "\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\": [1, null, [], 3],"
+            + "\"" + SimpleParseUUT.SUBOBJECT_FIELD_NAME + "\": {"
+            + "\"" + SimpleParseUUT.SubobjectParseUUT.INT_FIELD_NAME + "\": 2}}";
+
+    SimpleParseUUT__JsonHelper.SimpleParseUUT__View view =
+        SimpleParseUUT__JsonHelper.view(inputString.getBytes("UTF-8"));
+    assertEquals(-12, view.getIntField());
+    assertEquals(15f, view.getFloatField(), .0001f);
+    assertEquals("caf\u00e9 \"\u00e9\"", view.getStringField());
+    assertEquals(Arrays.asList(1, 3), view.getIntegerListField());
+    assertEquals(2, view.getSubobjectField().getIntField());
+
+    // absent fields read as the default value of their type.
+    assertNull(view.getIntegerField());
+    assertNull(view.getIntegerSetField());
+
+    // like the streaming parser, coerced fields read scalars of other types.
+    view =
+        SimpleParseUUT__JsonHelper.view(
+            ("{\"" + SimpleParseUUT.INT_FIELD_NAME + "\": \"12\","
+                    + "\"" + SimpleParseUUT.INTEGER_FIELD_NAME + "\": true,"
+                    + "\"" + SimpleParseUUT.FLOAT_FIELD_NAME + "\": \"1.5\","
+                    + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\": 3}")
+                .getBytes("UTF-8"));
+    assertEquals(12, view.getIntField());
+    assertEquals(Integer.valueOf(1), view.getIntegerField());
+    assertEquals(1.5f, view.getFloatField(), .0001f);
+    assertNull(view.getStringField());
+
+    view =
+        SimpleParseUUT__JsonHelper.view(
+            ("{\"" + SimpleParseUUT.INT_FIELD_NAME + "\": 3000000000}").getBytes("UTF-8"));
+    assertEquals(Integer.MAX_VALUE, view.getIntField());
+
+    try {
+      SimpleParseUUT__JsonHelper.view("{\"int\": 1,}".getBytes("UTF-8"));
+      fail("Expected JsonParseException to be thrown");
+    } catch (JsonParseException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void parseLazyField() throws Exception {
+    String lazyJson =
+        "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\":2,"
+            + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\":\"value\"}";
+    String inputString =
+        "{\"" + LazyUUT.INT_FIELD_NAME + "\":1,"
+            + "\"" + LazyUUT.LAZY_FIELD_NAME + "\":" + lazyJson + "}";
+
+    final LazyUUT uut = LazyUUT__JsonHelper.parseFromJson(inputString);
+    assertEquals(1, uut.intField);
+    assertFalse(uut.lazyField.isParsed());
+
+    // an untouched value is serialized without being parsed.
+    assertEquals(inputString, LazyUUT__JsonHelper.serializeToJson(uut));
+    assertFalse(uut.lazyField.isParsed());
+
+    // every thread sees the same instance.
+    final SimpleParseUUT[] results = new SimpleParseUUT[4];
+    Thread[] threads = new Thread[results.length];
+    for (int i = 0; i < threads.length; i++) {
+      final int index = i;
+      threads[i] =
+          new Thread() {
+            @Override
+            public void run() {
+              try {
+                results[index] = uut.lazyField.get();
+              } catch (IOException ex) {
+                throw new RuntimeException(ex);
+              }
+            }
+          };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(uut.lazyField.isParsed());
+    assertEquals(2, results[0].intField);
+    assertEquals("value", results[0].stringField);
+    for (SimpleParseUUT result : results) {
+      assertSame(results[0], result);
+    }
+    assertEquals(
+        "{\"" + LazyUUT.INT_FIELD_NAME + "\":1,\"" + LazyUUT.LAZY_FIELD_NAME + "\":"
+            + SimpleParseUUT__JsonHelper.serializeToJson(results[0]) + "}",
+        LazyUUT__JsonHelper.serializeToJson(uut));
+  }
+
+  @Test
+  public void parseInternedStrings() throws IOException {
+    String inputString =
+        "{\"" + InternUUT.TYPE_FIELD_NAME + "\":\"photo\","
+            + "\"" + InternUUT.TAGS_FIELD_NAME + "\":[\"photo\",\"a\\u00e9\",null,3],"
+            + "\"" + InternUUT.CAPTION_FIELD_NAME + "\":\"photo\"}";
+
+    InternUUT first = InternUUT__JsonHelper.parseFromJson(inputString);
+    InternUUT second = InternUUT__JsonHelper.parseFromJson(inputString);
+
+    assertEquals("photo", first.typeField);
+    assertEquals(Arrays.asList("photo", "a\u00e9", "3"), first.tagsField);
+    assertSame(first.typeField, second.typeField);
+    assertSame(first.typeField, first.tagsField.get(0));
+    assertSame(first.tagsField.get(1), second.tagsField.get(1));
+    assertNotSame(first.captionField, second.captionField);
+
+    JsonStringPool.setEnabled(false);
+    try {
+      InternUUT third = InternUUT__JsonHelper.parseFromJson(inputString);
+      assertEquals("photo", third.typeField);
+      assertNotSame(first.typeField, third.typeField);
+      assertNotSame(first.tagsField.get(1), third.tagsField.get(1));
+    } finally {
+      JsonStringPool.setEnabled(true);
+    }
+    assertSame(first.typeField, InternUUT__JsonHelper.parseFromJson(inputString).typeField);
+  }
+
+  @Test
+  public void parsePrimitiveArrays() throws IOException {
+    StringBuilder ints = new StringBuilder();
+    int[] expectedInts = new int[40];
+    for (int ix = 0; ix < expectedInts.length; ix++) {
+      expectedInts[ix] = ix * 3;
+      ints.append(ix == 0 ? "" : ",").append(ix * 3);
+    }
+    String inputString =
+        "{\"" + PrimitiveArrayUUT.INT_ARRAY_FIELD_NAME + "\":[" + ints + "],"
+            + "\"" + PrimitiveArrayUUT.LONG_ARRAY_FIELD_NAME + "\":[12345678901,null,\"7\"],"
+            + "\"" + PrimitiveArrayUUT.FLOAT_ARRAY_FIELD_NAME + "\":[0.5,-1.25,3],"
+            + "\"" + PrimitiveArrayUUT.DOUBLE_ARRAY_FIELD_NAME + "\":[],"
+            + "\"" + PrimitiveArrayUUT.BOOLEAN_ARRAY_FIELD_NAME + "\":{\"a\":[true]}}";
+
+    PrimitiveArrayUUT uut = PrimitiveArrayUUT__JsonHelper.parseFromJson(inputString);
+
+    assertArrayEquals(expectedInts, uut.intArrayField);
+    assertArrayEquals(new long[] {12345678901L, 7}, uut.longArrayField);
+    assertArrayEquals(new float[] {0.5f, -1.25f, 3f}, uut.floatArrayField, 0f);
+    assertArrayEquals(new double[0], uut.doubleArrayField, 0d);
+    assertNull(uut.booleanArrayField);
+
+    uut.booleanArrayField = new boolean[] {true, false};
+    PrimitiveArrayUUT copy =
+        PrimitiveArrayUUT__JsonHelper.parseFromJson(
+            PrimitiveArrayUUT__JsonHelper.serializeToJson(uut));
+
+    assertArrayEquals(expectedInts, copy.intArrayField);
+    assertArrayEquals(uut.longArrayField, copy.longArrayField);
+    assertArrayEquals(uut.floatArrayField, copy.floatArrayField, 0f);
+    assertArrayEquals(uut.doubleArrayField, copy.doubleArrayField, 0d);
+    assertTrue(Arrays.equals(uut.booleanArrayField, copy.booleanArrayField));
+  }
+
+  @Test
+  public void parseExactPrimitiveArrays() throws IOException {
+    PrimitiveArrayUUT uut =
+        PrimitiveArrayUUT__JsonHelper.parseFromJson(
+            "{\"" + PrimitiveArrayUUT.EXACT_INT_ARRAY_FIELD_NAME + "\":[1,-2,3],"
+                + "\"" + PrimitiveArrayUUT.EXACT_BOOLEAN_ARRAY_FIELD_NAME + "\":[true,false]}");
+    assertArrayEquals(new int[] {1, -2, 3}, uut.exactIntArrayField);
+    assertTrue(Arrays.equals(new boolean[] {true, false}, uut.exactBooleanArrayField));
+
+    for (String elements : new String[] {"1,\"2\"", "1,2.5", "1,null", "[1]"}) {
+      try {
+        PrimitiveArrayUUT__JsonHelper.parseFromJson(
+            "{\"" + PrimitiveArrayUUT.EXACT_INT_ARRAY_FIELD_NAME + "\":[" + elements + "]}");
+        fail("exact mismatches in a primitive array should throw for " + elements);
+      } catch (JsonParseException ex) {
+        // this is expected.
+      }
+    }
+    try {
+      PrimitiveArrayUUT__JsonHelper.parseFromJson(
+          "{\"" + PrimitiveArrayUUT.EXACT_BOOLEAN_ARRAY_FIELD_NAME + "\":[true,1]}");
+      fail("exact mismatches in a primitive array should throw");
+    } catch (JsonParseException ex) {
+      // this is expected.
+    }
+  }
+
+  @Test
+  public void parseIntoReusesInstance() throws IOException {
+    SimpleParseUUT uut =
+        SimpleParseUUT__JsonHelper.parseFromJson(
+            "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\":3,"
+                + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\":\"first\","
+                + "\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\":[1,2,3],"
+                + "\"" + SimpleParseUUT.INTEGER_SET_FIELD_NAME + "\":[4]}");
+    List<Integer> integerList = uut.integerListField;
+    Set<Integer> integerSet = uut.integerSetField;
+
+    JsonParser jp =
+        new JsonFactory()
+            .createParser(
+                "{\"" + SimpleParseUUT.INTEGER_FIELD_NAME + "\":5,"
+                    + "\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\":[6,7]}");
+    jp.nextToken();
+    SimpleParseUUT reused = SimpleParseUUT__JsonHelper.parseInto(uut, jp);
+
+    assertSame(uut, reused);
+    assertEquals(0, reused.intField);
+    assertEquals(Integer.valueOf(5), reused.integerField);
+    assertNull(reused.stringField);
+    assertSame(integerList, reused.integerListField);
+    assertEquals(Arrays.asList(6, 7), reused.integerListField);
+    // a collection that is missing from the json is left empty.
+    assertSame(integerSet, reused.integerSetField);
+    assertTrue(reused.integerSetField.isEmpty());
+  }
+
+  @Test
+  public void parseIntoReusesInheritedCollections() throws IOException {
+    SubclassOfSimpleParseUUT uut = new SubclassOfSimpleParseUUT();
+    uut.subclassIntField = 3;
+    List<Integer> integerList = new ArrayList<>(Arrays.asList(1, 2));
+    uut.integerListField = integerList;
+
+    JsonParser jp =
+        new JsonFactory()
+            .createParser("{\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\":[4,5]}");
+    jp.nextToken();
+    SubclassOfSimpleParseUUT reused = SubclassOfSimpleParseUUT__JsonHelper.parseInto(uut, jp);
+
+    assertEquals(0, reused.subclassIntField);
+    assertSame(integerList, reused.integerListField);
+    assertEquals(Arrays.asList(4, 5), reused.integerListField);
+  }
+
+  @Test
+  public void mergeFromJsonKeepsMissingFields() throws IOException {
+    SimpleParseUUT uut =
+        SimpleParseUUT__JsonHelper.parseFromJson(
+            "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\":3,"
+                + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\":\"first\","
+                + "\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\":[1,2,3],"
+                + "\"" + SimpleParseUUT.SUBOBJECT_FIELD_NAME + "\":{"
+                + "\"" + SimpleParseUUT.SubobjectParseUUT.INT_FIELD_NAME + "\":4}}");
+    SimpleParseUUT.SubobjectParseUUT subobject = uut.subobjectField;
+
+    JsonParser jp =
+        new JsonFactory()
+            .createParser(
+                "{\"" + SimpleParseUUT.STRING_FIELD_NAME + "\":\"second\","
+                    + "\"" + SimpleParseUUT.SUBOBJECT_FIELD_NAME + "\":{"
+                    + "\"" + SimpleParseUUT.SubobjectParseUUT.INT_FIELD_NAME + "\":5}}");
+    jp.nextToken();
+    SimpleParseUUT merged = SimpleParseUUT__JsonHelper.mergeFromJson(uut, jp);
+
+    assertSame(uut, merged);
+    assertEquals(3, merged.intField);
+    assertEquals("second", merged.stringField);
+    assertEquals(Arrays.asList(1, 2, 3), merged.integerListField);
+    assertSame(subobject, merged.subobjectField);
+    assertEquals(5, merged.subobjectField.intField);
+  }
+
+  @Test
+  public void mergeFromJsonMergesInheritedFields() throws IOException {
+    SubclassOfSimpleParseUUT uut = new SubclassOfSimpleParseUUT();
+    uut.intField = 3;
+    uut.subclassIntField = 4;
+    SimpleParseUUT.SubobjectParseUUT subobject = new SimpleParseUUT.SubobjectParseUUT();
+    uut.subobjectField = subobject;
+
+    JsonParser jp =
+        new JsonFactory()
+            .createParser(
+                "{\"" + SubclassOfSimpleParseUUT.SUBCLASS_INT_FIELD_NAME + "\":5,"
+                    + "\"" + SimpleParseUUT.SUBOBJECT_FIELD_NAME + "\":{"
+                    + "\"" + SimpleParseUUT.SubobjectParseUUT.INT_FIELD_NAME + "\":6}}");
+    jp.nextToken();
+    SubclassOfSimpleParseUUT merged = SubclassOfSimpleParseUUT__JsonHelper.mergeFromJson(uut, jp);
+
+    assertSame(uut, merged);
+    assertEquals(3, merged.intField);
+    assertEquals(5, merged.subclassIntField);
+    assertSame(subobject, merged.subobjectField);
+    assertEquals(6, merged.subobjectField.intField);
+  }
+
+  @Test
+  public void mergeFromJsonReplacesCollections() throws IOException {
+    SimpleParseUUT uut = new SimpleParseUUT();
+    List<Integer> integerList = Collections.unmodifiableList(Arrays.asList(1, 2, 3));
+    uut.integerListField = integerList;
+
+    JsonParser jp =
+        new JsonFactory()
+            .createParser("{\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\":[4,5]}");
+    jp.nextToken();
+    SimpleParseUUT merged = SimpleParseUUT__JsonHelper.mergeFromJson(uut, jp);
+
+    assertNotSame(integerList, merged.integerListField);
+    assertEquals(Arrays.asList(4, 5), merged.integerListField);
+    assertEquals(Arrays.asList(1, 2, 3), integerList);
+  }
+
+  @Test
+  public void deepCopyCopiesFields() throws IOException {
+    SimpleParseUUT uut =
+        SimpleParseUUT__JsonHelper.parseFromJson(
+            "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\":3,"
+                + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\":\"value\","
+                + "\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\":[1,2,3],"
+                + "\"" + SimpleParseUUT.SUBOBJECT_FIELD_NAME + "\":{"
+                + "\"" + SimpleParseUUT.SubobjectParseUUT.INT_FIELD_NAME + "\":4}}");
+
+    SimpleParseUUT copy = SimpleParseUUT__JsonHelper.deepCopy(uut);
+
+    assertNotSame(uut, copy);
+    assertEquals(3, copy.intField);
+    assertEquals("value", copy.stringField);
+    assertNotSame(uut.integerListField, copy.integerListField);
+    assertEquals(Arrays.asList(1, 2, 3), copy.integerListField);
+    assertNotSame(uut.subobjectField, copy.subobjectField);
+    assertEquals(4, copy.subobjectField.intField);
+    assertNull(copy.integerSetField);
+    assertNull(SimpleParseUUT__JsonHelper.deepCopy(null));
+
+    MapUUT mapUut = new MapUUT();
+    mapUut.stringObjectMapField = new HashMap<>();
+    mapUut.stringObjectMapField.put("one", new MapUUT.MapObject());
+    mapUut.stringObjectMapField.put("none", null);
+    MapUUT mapCopy = MapUUT__JsonHelper.deepCopy(mapUut);
+
+    assertEquals(mapUut.stringObjectMapField, mapCopy.stringObjectMapField);
+    assertNotSame(
+        mapUut.stringObjectMapField.get("one"), mapCopy.stringObjectMapField.get("one"));
+    assertTrue(mapCopy.stringObjectMapField.containsKey("none"));
+  }
+
+  @Test
+  public void deepCopyCopiesLazyFields() throws IOException {
+    LazyUUT uut =
+        LazyUUT__JsonHelper.parseFromJson(
+            "{\"" + LazyUUT.LAZY_FIELD_NAME + "\":{"
+                + "\"" + SimpleParseUUT.INT_FIELD_NAME + "\":2}}");
+
+    LazyUUT unparsedCopy = LazyUUT__JsonHelper.deepCopy(uut);
+    assertFalse(unparsedCopy.lazyField.isParsed());
+    assertEquals(2, unparsedCopy.lazyField.get().intField);
+    assertFalse(uut.lazyField.isParsed());
+
+    assertEquals(2, uut.lazyField.get().intField);
+    assertNotSame(uut.lazyField.get(), unparsedCopy.lazyField.get());
+
+    // once parsed, the value itself is copied.
+    LazyUUT parsedCopy = LazyUUT__JsonHelper.deepCopy(uut);
+    assertTrue(parsedCopy.lazyField.isParsed());
+    assertNotSame(uut.lazyField.get(), parsedCopy.lazyField.get());
+    assertEquals(2, parsedCopy.lazyField.get().intField);
+  }
+
+  @Test
+  public void deepCopySkipsAssignmentFormatters() throws IOException {
+    FormatterUUT uut =
+        FormatterUUT__JsonHelper.parseFromJson(
+            "{\"" + FormatterUUT.VALUE_FORMATTER_FIELD_NAME + "\":10,"
+                + "\"" + FormatterUUT.FIELD_ASSIGNMENT_FIELD_NAME + "\":25}");
+
+    FormatterUUT copy = FormatterUUT__JsonHelper.deepCopy(FormatterUUT__JsonHelper.deepCopy(uut));
+
+    assertEquals(25, copy.getValueFormatter());
+    assertEquals(-25, copy.getFieldAssignmentFormatter());
+
+    SimpleParseUUT simple =
+        SimpleParseUUT__JsonHelper.parseFromJson(
+            "{\"" + SimpleParseUUT.SUBENUM_LIST_FIELD_NAME + "\":[\"A\"]}");
+    SimpleParseUUT simpleCopy = SimpleParseUUT__JsonHelper.deepCopy(simple);
+
+    assertEquals(simple.subenumFieldList, simpleCopy.subenumFieldList);
+    assertNotSame(simple.subenumFieldList, simpleCopy.subenumFieldList);
+  }
+
   @Test
   public void nullString() throws IOException, JSONException {
     StringWriter stringWriter = new StringWriter();
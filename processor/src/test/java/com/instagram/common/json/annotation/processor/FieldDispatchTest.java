@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.instagram.common.json.annotation.processor.uut.FieldDispatchUUT;
+import com.instagram.common.json.annotation.processor.uut.FieldDispatchUUT__JsonHelper;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Tests that generated helpers dispatch every field name, including alternate names and names that
+ * share a hash code, to the field it belongs to.
+ */
+public class FieldDispatchTest {
+
+  @Test
+  public void dispatchesCollidingNames() throws IOException {
+    FieldDispatchUUT uut =
+        FieldDispatchUUT__JsonHelper.parseFromJson(
+            "{\"" + FieldDispatchUUT.AA_FIELD_NAME + "\":\"aa\","
+                + "\"" + FieldDispatchUUT.BB_FIELD_NAME + "\":\"bb\","
+                + "\"" + FieldDispatchUUT.AAAA_FIELD_NAME + "\":\"aaaa\","
+                + "\"" + FieldDispatchUUT.AABB_FIELD_NAME + "\":7}");
+    assertEquals("aa", uut.aaField);
+    assertEquals("bb", uut.bbField);
+    assertEquals("aaaa", uut.aaaaField);
+    assertEquals(7, uut.aabbField);
+  }
+
+  @Test
+  public void dispatchesAlternateNames() throws IOException {
+    FieldDispatchUUT uut =
+        FieldDispatchUUT__JsonHelper.parseFromJson(
+            "{\"" + FieldDispatchUUT.AABB_FIELD_NAME + "\":7,"
+                + "\"" + FieldDispatchUUT.AAAA_ALTERNATE_FIELD_NAME + "\":\"bbbb\","
+                + "\"" + FieldDispatchUUT.AA_ALTERNATE_FIELD_NAME + "\":\"c#\"}");
+    assertEquals("c#", uut.aaField);
+    assertNull(uut.bbField);
+    assertEquals("bbbb", uut.aaaaField);
+    assertEquals(7, uut.aabbField);
+  }
+
+  @Test
+  public void skipsUnknownCollidingNames() throws IOException {
+    // the unknown name shares a hash with two fields, and its value is an object to skip.
+    FieldDispatchUUT uut =
+        FieldDispatchUUT__JsonHelper.parseFromJson(
+            "{\"" + FieldDispatchUUT.BB_FIELD_NAME + "\":\"bb\","
+                + "\"" + FieldDispatchUUT.UNKNOWN_FIELD_NAME + "\":{\"Aa\":\"nested\"},"
+                + "\"aa\":\"wrong case\","
+                + "\"" + FieldDispatchUUT.AABB_FIELD_NAME + "\":7}");
+    assertNull(uut.aaField);
+    assertEquals("bb", uut.bbField);
+    assertNull(uut.aaaaField);
+    assertEquals(7, uut.aabbField);
+  }
+
+  @Test
+  public void dispatchesNamesInAnyOrder() throws IOException {
+    String[] inputs = {
+      "{\"Aa\":\"1\",\"BB\":\"2\",\"AaAa\":\"3\",\"AaBB\":4}",
+      "{\"AaBB\":4,\"AaAa\":\"3\",\"BB\":\"2\",\"Aa\":\"1\"}",
+      "{\"BBBB\":\"3\",\"C#\":\"1\",\"AaBB\":4,\"BB\":\"2\"}",
+    };
+    // parse each order several times, so that the fields the helper expects next are wrong at
+    // first and right later.
+    for (int ix = 0; ix < inputs.length * 3; ix++) {
+      FieldDispatchUUT uut = FieldDispatchUUT__JsonHelper.parseFromJson(inputs[ix % inputs.length]);
+      assertEquals("1", uut.aaField);
+      assertEquals("2", uut.bbField);
+      assertEquals("3", uut.aaaaField);
+      assertEquals(4, uut.aabbField);
+    }
+  }
+
+  @Test
+  public void dispatchesCollidingNamesInStrictClasses() throws IOException {
+    CollidingFieldsObject object =
+        CollidingFieldsObject__JsonHelper.parseFromJson("{\"BB\":\"bb\",\"Aa\":\"aa\"}");
+    assertEquals("aa", object.getAa());
+    assertEquals("bb", object.mBb);
+
+    object = CollidingFieldsObject__JsonHelper.parseFromJson("{\"C#\":\"c#\",\"BB\":\"bb\"}");
+    assertEquals("c#", object.getAa());
+    assertEquals("bb", object.mBb);
+  }
+}
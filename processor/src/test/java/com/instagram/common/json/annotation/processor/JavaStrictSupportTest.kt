@@ -113,4 +113,32 @@ class JavaStrictSupportTest {
     jp.nextToken()
     ImmutableObject__JsonHelper.parseFromJson(jp)
   }
+
+  @Test
+  fun deserializePrimitiveFields() {
+    val json = """{"enabled":true,"id":7}"""
+    val actual = PrimitiveObject__JsonHelper.parseFromJson(json)
+    assertEquals(7, actual.id)
+    assertEquals(PrimitiveObject.COUNT_DEFAULT, actual.mCount)
+    assertEquals(true, actual.mEnabled)
+  }
+
+  @Test
+  fun deserializeMissingPrimitiveFieldHasLogs() {
+    val json = """{"count":3}"""
+    val jp =
+        CallbackContainingJsonParser(JsonFactoryHolder.APP_FACTORY.createParser(json), callback)
+    // jackson needs to be advanced to the first token before parsing
+    jp.nextToken()
+    val actual = PrimitiveObject__JsonHelper.parseFromJson(jp)
+    assertEquals(1, callback.counter)
+    assertEquals("id", callback.fieldName)
+    assertEquals(3L, actual.mCount)
+  }
+
+  @Test
+  fun deserializeMissingPrimitiveFieldWithoutCallbackThrows() {
+    expectedException.expect(JsonCallback.JsonDeserializationException::class.java)
+    PrimitiveObject__JsonHelper.parseFromJson("""{"count":3}""")
+  }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.instagram.common.json.JsonFactoryHolder;
+import com.instagram.common.json.JsonFieldMatcher;
+import com.instagram.common.json.JsonFieldOrderProfile;
+import java.io.IOException;
+import org.junit.Test;
+
+/** Tests for the field name lookup shared by the generated parsers. */
+public class JsonFieldMatcherTest {
+  private final JsonFieldMatcher mMatcher =
+      new JsonFieldMatcher(
+          new String[][] {
+            {"id"}, {"name", "full_name", "id"}, {"Aa"}, {"BB"},
+          });
+
+  @Test
+  public void matchesPrimaryAndAlternateNames() {
+    assertEquals(0, mMatcher.match("id"));
+    assertEquals(1, mMatcher.match("name"));
+    assertEquals(1, mMatcher.match("full_name"));
+    assertEquals("name", mMatcher.getFieldName(1));
+    assertEquals(4, mMatcher.getFieldCount());
+  }
+
+  @Test
+  public void firstFieldWinsDuplicateNames() {
+    assertEquals(0, mMatcher.match("id"));
+  }
+
+  @Test
+  public void unknownNames() {
+    assertEquals(JsonFieldMatcher.UNKNOWN_FIELD, mMatcher.match("nam"));
+    assertEquals(JsonFieldMatcher.UNKNOWN_FIELD, mMatcher.match(""));
+    assertEquals(JsonFieldMatcher.UNKNOWN_FIELD, mMatcher.match((String) null));
+  }
+
+  @Test
+  public void collidingHashes() {
+    // "Aa" and "BB" have the same hash code.
+    assertEquals(2, mMatcher.match("Aa"));
+    assertEquals(3, mMatcher.match("BB"));
+  }
+
+  @Test
+  public void matchesCharacterBuffer() {
+    char[] buffer = "xxfull_nameBBid".toCharArray();
+    assertEquals(1, mMatcher.match(buffer, 2, 9));
+    assertEquals(3, mMatcher.match(buffer, 11, 2));
+    assertEquals(0, mMatcher.match(buffer, 13, 2));
+    assertEquals(JsonFieldMatcher.UNKNOWN_FIELD, mMatcher.match(buffer, 0, 4));
+  }
+
+  @Test
+  public void matchesInAnyOrder() throws IOException {
+    // the first payload teaches the matcher an order; the others break it.
+    assertEquals("0 1 2 3", matchAll("{\"id\":1,\"name\":2,\"Aa\":3,\"BB\":4}"));
+    assertEquals("0 1 2 3", matchAll("{\"id\":1,\"name\":2,\"Aa\":3,\"BB\":4}"));
+    assertEquals("3 -1 1 0", matchAll("{\"BB\":1,\"x\":2,\"full_name\":3,\"id\":4}"));
+    assertEquals("0 1 2 3", matchAll("{\"id\":1,\"name\":2,\"Aa\":3,\"BB\":4}"));
+    assertEquals("3 -1 1 0", matchAll("{\"BB\":1,\"x\":2,\"full_name\":3,\"id\":4}"));
+  }
+
+  @Test
+  public void profilesMatches() throws IOException {
+    JsonFieldMatcher matcher = new JsonFieldMatcher(new String[][] {{"a"}, {"b"}, {"c"}}, true);
+    JsonFieldOrderProfile profile = matcher.getProfile();
+    assertEquals("0 1 -1 2", matchAll(matcher, "{\"a\":1,\"b\":2,\"x\":3,\"c\":4}"));
+    assertEquals(4, profile.getMatchCount());
+    assertEquals(2, profile.getExpectedCount());
+    assertEquals(1, profile.getUnknownCount());
+    assertEquals(1, profile.getFieldMatchCount(0));
+    assertEquals(1, profile.getFieldMatchCount(2));
+
+    assertEquals("0 1 -1 2", matchAll(matcher, "{\"a\":1,\"b\":2,\"x\":3,\"c\":4}"));
+    assertEquals(8, profile.getMatchCount());
+    // a profiled matcher keeps its guesses until the end of the window.
+    assertEquals(4, profile.getExpectedCount());
+    assertEquals(0.5, profile.getExpectedRate(), 0);
+    assertEquals(0, profile.getReorderCount());
+  }
+
+  @Test
+  public void reordersAtTheEndOfEachWindow() throws IOException {
+    String cab = "{\"c\":1,\"a\":2,\"b\":3}";
+    String abc = "{\"a\":1,\"b\":2,\"c\":3}";
+    // a window of three payloads of three names.
+    JsonFieldMatcher matcher = new JsonFieldMatcher(new String[][] {{"a"}, {"b"}, {"c"}}, 9);
+    JsonFieldOrderProfile profile = matcher.getProfile();
+    assertEquals(9, profile.getWindow());
+    matchAll(matcher, cab);
+    matchAll(matcher, cab);
+    matchAll(matcher, abc);
+    // "c" came first in most payloads, so it is now expected first.
+    assertEquals(1, profile.getReorderCount());
+
+    long expectedCount = profile.getExpectedCount();
+    matchAll(matcher, cab);
+    assertEquals(expectedCount + 3, profile.getExpectedCount());
+    matchAll(matcher, cab);
+    // the less common order misses only its first name, and does not change the guesses.
+    matchAll(matcher, abc);
+    assertEquals(expectedCount + 8, profile.getExpectedCount());
+    assertEquals(1, profile.getReorderCount());
+  }
+
+  @Test
+  public void noProfileByDefault() {
+    assertNull(mMatcher.getProfile());
+  }
+
+  private String matchAll(String json) throws IOException {
+    return matchAll(mMatcher, json);
+  }
+
+  private static String matchAll(JsonFieldMatcher matcher, String json) throws IOException {
+    JsonParser jp = JsonFactoryHolder.APP_FACTORY.createParser(json);
+    jp.nextToken();
+    StringBuilder sb = new StringBuilder();
+    int fieldIndex = JsonFieldMatcher.UNKNOWN_FIELD;
+    while (jp.nextToken() != JsonToken.END_OBJECT) {
+      fieldIndex = matcher.match(jp, fieldIndex);
+      sb.append(sb.length() == 0 ? "" : " ").append(fieldIndex);
+      jp.nextToken();
+    }
+    jp.close();
+    return sb.toString();
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.instagram.common.json.JsonTape;
+import java.io.IOException;
+import org.junit.Test;
+
+/** Tests for the structural index the generated views read from. */
+public class JsonTapeTest {
+
+  @Test
+  public void readsLongsExactly() throws IOException {
+    JsonTape tape =
+        tape("[9223372036854775807, -9223372036854775808, 1234567890123456789, -12, 7.9, 1e3]");
+    assertEquals(Long.MAX_VALUE, tape.getLong(1));
+    assertEquals(Long.MIN_VALUE, tape.getLong(2));
+    assertEquals(1234567890123456789L, tape.getLong(3));
+    assertEquals(-12, tape.getLong(4));
+    assertEquals(7, tape.getLong(5));
+    assertEquals(1000, tape.getLong(6));
+  }
+
+  @Test
+  public void clampsLongsOutOfRange() throws IOException {
+    JsonTape tape = tape("[9223372036854775808, -9223372036854775809, 123456789012345678901e-5]");
+    assertEquals(Long.MAX_VALUE, tape.getLong(1));
+    assertEquals(Long.MIN_VALUE, tape.getLong(2));
+    assertEquals(1234567890123456L, tape.getLong(3));
+  }
+
+  @Test
+  public void rejectsMalformedNumbers() throws IOException {
+    for (String number : new String[] {"-", "1.2.3", "1e", "1.", ".5", "01", "12-3", "1e+", "-x"}) {
+      try {
+        tape("[" + number + "]");
+        fail("Expected JsonParseException for " + number);
+      } catch (JsonParseException ex) {
+        // expected
+      }
+    }
+    JsonTape tape = tape("[0, -0.5, 1E+2, 2e-1]");
+    assertEquals(-0.5, tape.getDouble(2), 0);
+    assertEquals(100, tape.getLong(3));
+    assertEquals(0.2, tape.getDouble(4), 0);
+  }
+
+  private static JsonTape tape(String json) throws IOException {
+    return JsonTape.build(json.getBytes("UTF-8"));
+  }
+}
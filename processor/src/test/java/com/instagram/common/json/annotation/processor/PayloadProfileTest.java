@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import org.junit.Test;
+
+/** Tests for reading the recorded payloads that guide code generation. */
+public class PayloadProfileTest {
+  private static final String CLASS_NAME = "com.example.Payload";
+
+  @Test
+  public void readsPayloads() throws IOException {
+    File directory = createProfileDirectory();
+    write(directory, "a.json", "{\"b\":[1,2,3],\"a\":\"x\"}");
+    write(directory, "b.json", "[{\"b\":[],\"m\":{\"k\":1,\"l\":[2]}},{\"a\":null,\"alt\":[4,5]}]");
+    write(directory, "ignored.txt", "{\"c\":1}");
+
+    PayloadProfile profile = PayloadProfile.load(directory.getParentFile(), CLASS_NAME);
+    assertEquals(3, profile.getPayloadCount());
+
+    TypeData a = createTypeData("a");
+    TypeData b = createTypeData("b", "alt");
+    TypeData c = createTypeData("c");
+    TypeData m = createTypeData("m");
+
+    assertEquals(2, profile.getOccurrences(a));
+    assertEquals(3, profile.getOccurrences(b));
+    assertEquals(0, profile.getOccurrences(c));
+
+    assertEquals(0.5, profile.getAveragePosition(a), 0);
+    assertEquals(1.0 / 3, profile.getAveragePosition(b), 0.0001);
+    assertTrue(profile.getAveragePosition(c) > profile.getAveragePosition(a));
+
+    // sizes 3, 0 and 2 average out to 5 / 3, rounded up.
+    assertEquals(2, profile.getAverageContainerSize(b));
+    assertEquals(2, profile.getAverageContainerSize(m));
+    assertEquals(0, profile.getAverageContainerSize(a));
+  }
+
+  @Test
+  public void missingDirectory() throws IOException {
+    File directory = createProfileDirectory();
+    assertNull(PayloadProfile.load(directory.getParentFile(), "com.example.Other"));
+    assertNull(PayloadProfile.load(directory.getParentFile(), CLASS_NAME));
+  }
+
+  private static File createProfileDirectory() throws IOException {
+    File root = File.createTempFile("payloads", "");
+    assertTrue(root.delete());
+    File directory = new File(root, CLASS_NAME);
+    assertTrue(directory.mkdirs());
+    root.deleteOnExit();
+    directory.deleteOnExit();
+    return directory;
+  }
+
+  private static void write(File directory, String name, String contents) throws IOException {
+    File file = new File(directory, name);
+    file.deleteOnExit();
+    Writer writer = new FileWriter(file);
+    try {
+      writer.write(contents);
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static TypeData createTypeData(String fieldName, String... alternateFieldNames) {
+    TypeData data = new TypeData();
+    data.setFieldName(fieldName);
+    data.setAlternateFieldNames(alternateFieldNames);
+    return data;
+  }
+}
@@ -7,16 +7,27 @@
 
 package com.instagram.common.json.annotation.processor;
 
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.instagram.common.json.JsonCodec;
+import com.instagram.common.json.JsonFieldMask;
+import com.instagram.common.json.JsonTape;
+import com.instagram.common.json.annotation.processor.dependent.SubclassUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.noserializers.NoSerializerGlobalUUT;
 import com.instagram.common.json.annotation.processor.noserializers.NoSerializerGlobalUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.NoSerializerClassUUT;
 import com.instagram.common.json.annotation.processor.uut.NoSerializerClassUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT;
 import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT__JsonHelper;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.lang.reflect.Method;
 import org.junit.Test;
 
@@ -83,4 +94,88 @@ public class SelectiveGenerationTest {
     }
     assertNull(serializeMethod);
   }
+
+  @Test
+  public void testNoFieldMasksForStrictClassesAndSubclasses() throws Exception {
+    Method maskedParseMethod =
+        SimpleParseUUT__JsonHelper.class.getMethod(
+            "parseFromJson", JsonParser.class, JsonFieldMask.class);
+    assertNotNull(maskedParseMethod);
+
+    for (Class<?> helperClass :
+        new Class<?>[] {PrimitiveObject__JsonHelper.class, SubclassUUT__JsonHelper.class}) {
+      try {
+        maskedParseMethod = null;
+        maskedParseMethod =
+            helperClass.getMethod("parseFromJson", JsonParser.class, JsonFieldMask.class);
+      } catch (NoSuchMethodException ignored) {
+      }
+      assertNull(maskedParseMethod);
+
+      Method fieldsMethod = null;
+      try {
+        fieldsMethod = helperClass.getMethod("fields", JsonFieldMask.Field[].class);
+      } catch (NoSuchMethodException ignored) {
+      }
+      assertNull(fieldsMethod);
+    }
+  }
+
+  @Test
+  public void testOptionalMethodsOnlyWithTheirOption() throws Exception {
+    // the noserializers module is compiled without any of the generate* options.
+    assertOnlyWithOption(NoSerializerGlobalUUT__JsonHelper.class, "view", JsonTape.class);
+    assertOnlyWithOption(NoSerializerGlobalUUT__JsonHelper.class, "parseFromJson", byte[].class);
+    assertOnlyWithOption(
+        NoSerializerGlobalUUT__JsonHelper.class, "parseFromJson", InputStream.class);
+    assertOnlyWithOption(NoSerializerGlobalUUT__JsonHelper.class, "parseFromJson", Reader.class);
+    assertOnlyWithOption(NoSerializerGlobalUUT__JsonHelper.class, "forEachInArray");
+    assertOnlyWithOption(NoSerializerGlobalUUT__JsonHelper.class, "iterateArray");
+    assertOnlyWithOption(NoSerializerGlobalUUT__JsonHelper.class, "readJsonLines");
+    assertOnlyWithOption(
+        NoSerializerGlobalUUT__JsonHelper.class, "parseFromJson", String.class, JsonFactory.class);
+    assertOnlyWithOption(NoSerializerGlobalUUT__JsonHelper.class, "parseFromJson", JsonCodec.class);
+    // the strict module is compiled without them as well, and has serializers.
+    assertOnlyWithOption(PrimitiveObject__JsonHelper.class, "serializeToBytes");
+    assertOnlyWithOption(PrimitiveObject__JsonHelper.class, "serializeToJson", OutputStream.class);
+    assertOnlyWithOption(PrimitiveObject__JsonHelper.class, "writeJsonLines");
+    assertOnlyWithOption(
+        PrimitiveObject__JsonHelper.class, "serializeToJson", Object.class, JsonFactory.class);
+    assertOnlyWithOption(PrimitiveObject__JsonHelper.class, "serializeToJson", JsonCodec.class);
+    assertOnlyWithOption(PrimitiveObject__JsonHelper.class, "deepCopy");
+  }
+
+  /**
+   * Asserts that {@code SimpleParseUUT__JsonHelper} has a method with the given name whose
+   * parameters start with the given types or their subtypes, and that a helper compiled without the
+   * options does not.
+   */
+  private static void assertOnlyWithOption(
+      Class<?> helperWithoutOptions, String name, Class<?>... leadingParameterTypes) {
+    assertTrue(name, hasMethod(SimpleParseUUT__JsonHelper.class, name, leadingParameterTypes));
+    assertFalse(name, hasMethod(helperWithoutOptions, name, leadingParameterTypes));
+  }
+
+  private static boolean hasMethod(
+      Class<?> helperClass, String name, Class<?>... leadingParameterTypes) {
+    for (Method method : helperClass.getMethods()) {
+      if (method.getName().equals(name)
+          && startsWith(method.getParameterTypes(), leadingParameterTypes)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWith(Class<?>[] parameterTypes, Class<?>[] leadingParameterTypes) {
+    if (parameterTypes.length < leadingParameterTypes.length) {
+      return false;
+    }
+    for (int i = 0; i < leadingParameterTypes.length; i++) {
+      if (!leadingParameterTypes[i].isAssignableFrom(parameterTypes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
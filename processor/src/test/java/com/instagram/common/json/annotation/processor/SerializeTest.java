@@ -9,7 +9,9 @@ package com.instagram.common.json.annotation.processor;
 
 import static com.instagram.common.json.annotation.processor.uut.SimpleParseUUT.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -17,10 +19,16 @@ import static org.junit.Assert.assertTrue;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.BufferRecycler;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
+import com.instagram.common.json.BufferRecyclerPool;
+import com.instagram.common.json.JsonElementConsumer;
+import com.instagram.common.json.JsonFactoryHolder;
+import com.instagram.common.json.JsonOutputBuffer;
+import com.instagram.common.json.PooledJsonFactory;
 import com.instagram.common.json.annotation.processor.parent.InterfaceImplementation2UUT;
 import com.instagram.common.json.annotation.processor.parent.InterfaceImplementationUUT;
 import com.instagram.common.json.annotation.processor.parent.InterfaceParentDynamicUUTHelper;
@@ -32,10 +40,14 @@ import com.instagram.common.json.annotation.processor.uut.MapUUT;
 import com.instagram.common.json.annotation.processor.uut.MapUUT__JsonHelper;
 import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT;
 import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT__JsonHelper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Queue;
@@ -146,6 +158,108 @@ public class SerializeTest {
     assertSame(source.subobjectField.intField, parsed.subobjectField.intField);
   }
 
+  @Test
+  public void bytesSerializeTest() throws IOException {
+    SimpleParseUUT source = new SimpleParseUUT();
+    source.intField = 25;
+    source.stringField = "caf\u00e9 \u2603";
+    source.integerListField = Lists.newArrayList(1, 2, 3, 4);
+
+    String expected = SimpleParseUUT__JsonHelper.serializeToJson(source);
+    byte[] serialized = SimpleParseUUT__JsonHelper.serializeToBytes(source);
+    assertEquals(expected, new String(serialized, "UTF-8"));
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    SimpleParseUUT__JsonHelper.serializeToJson(outputStream, source);
+    assertEquals(expected, outputStream.toString("UTF-8"));
+
+    // a reused buffer is appended to until it is reset.
+    JsonOutputBuffer buffer = new JsonOutputBuffer(4);
+    SimpleParseUUT__JsonHelper.serializeToJson(buffer, source);
+    SimpleParseUUT__JsonHelper.serializeToJson(buffer, source);
+    assertEquals(expected + expected, new String(buffer.getBuffer(), 0, buffer.size(), "UTF-8"));
+    buffer.reset();
+    SimpleParseUUT__JsonHelper.serializeToJson(buffer, source);
+    assertEquals(expected, new String(buffer.toByteArray(), "UTF-8"));
+  }
+
+  @Test
+  public void jsonLinesTest() throws IOException {
+    SimpleParseUUT first = new SimpleParseUUT();
+    first.intField = 1;
+    first.stringField = "first";
+    SimpleParseUUT second = new SimpleParseUUT();
+    second.intField = 2;
+    second.stringField = "second\nline";
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    SimpleParseUUT__JsonHelper.writeJsonLines(outputStream, Arrays.asList(first, null, second));
+    assertEquals(
+        SimpleParseUUT__JsonHelper.serializeToJson(first)
+            + "\n"
+            + SimpleParseUUT__JsonHelper.serializeToJson(second)
+            + "\n",
+        outputStream.toString("UTF-8"));
+
+    final List<SimpleParseUUT> parsed = new ArrayList<>();
+    SimpleParseUUT__JsonHelper.readJsonLines(
+        new ByteArrayInputStream(outputStream.toByteArray()),
+        new JsonElementConsumer<SimpleParseUUT>() {
+          @Override
+          public void accept(SimpleParseUUT element) {
+            parsed.add(element);
+          }
+        });
+    assertEquals(2, parsed.size());
+    assertEquals("first", parsed.get(0).stringField);
+    assertEquals(2, parsed.get(1).intField);
+    assertEquals("second\nline", parsed.get(1).stringField);
+  }
+
+  @Test
+  public void streamsAreLeftOpenTest() throws IOException {
+    final boolean[] closed = new boolean[1];
+    SimpleParseUUT source = new SimpleParseUUT();
+    source.intField = 3;
+
+    ByteArrayOutputStream outputStream =
+        new ByteArrayOutputStream() {
+          @Override
+          public void close() {
+            closed[0] = true;
+          }
+        };
+    SimpleParseUUT__JsonHelper.serializeToJson(outputStream, source);
+    SimpleParseUUT__JsonHelper.writeJsonLines(outputStream, Arrays.asList(source));
+    assertFalse(closed[0]);
+
+    byte[] serialized = SimpleParseUUT__JsonHelper.serializeToBytes(source);
+    ByteArrayInputStream inputStream =
+        new ByteArrayInputStream(serialized) {
+          @Override
+          public void close() {
+            closed[0] = true;
+          }
+        };
+    assertEquals(3, SimpleParseUUT__JsonHelper.parseFromJson(inputStream).intField);
+    inputStream.reset();
+    SimpleParseUUT__JsonHelper.readJsonLines(
+        inputStream,
+        new JsonElementConsumer<SimpleParseUUT>() {
+          @Override
+          public void accept(SimpleParseUUT element) {}
+        });
+    StringReader reader =
+        new StringReader(new String(serialized, "UTF-8")) {
+          @Override
+          public void close() {
+            closed[0] = true;
+          }
+        };
+    assertEquals(3, SimpleParseUUT__JsonHelper.parseFromJson(reader).intField);
+    assertFalse(closed[0]);
+  }
+
   @Test
   public void enumTest() throws IOException {
     final EnumUUT.EnumType value = EnumUUT.EnumType.VALUE3;
@@ -344,6 +458,93 @@ public class SerializeTest {
     }
   }
 
+  @Test
+  public void configuredFactoryTest() throws IOException {
+    SimpleParseUUT source = new SimpleParseUUT();
+    source.intField = 3;
+
+    JsonFactory unquotedFactory = new JsonFactory();
+    unquotedFactory.disable(JsonGenerator.Feature.QUOTE_FIELD_NAMES);
+    assertTrue(
+        SimpleParseUUT__JsonHelper.serializeToJson(source, unquotedFactory)
+            .startsWith("{" + INT_FIELD_NAME + ":3"));
+
+    JsonFactory lenientFactory = new JsonFactory();
+    lenientFactory.enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES);
+    String singleQuoted = "{'" + INT_FIELD_NAME + "': 4}";
+    assertEquals(
+        4, SimpleParseUUT__JsonHelper.parseFromJson(singleQuoted, lenientFactory).intField);
+
+    JsonFactoryHolder.setAppFactory(lenientFactory);
+    try {
+      // the factory is not pooled, so the helpers leave the pool alone.
+      assertNull(JsonFactoryHolder.acquireBufferRecycler());
+      assertEquals(4, SimpleParseUUT__JsonHelper.parseFromJson(singleQuoted).intField);
+      assertTrue(
+          SimpleParseUUT__JsonHelper.serializeToJson(source)
+              .startsWith("{\"" + INT_FIELD_NAME + "\":3"));
+      assertEquals(
+          SimpleParseUUT__JsonHelper.serializeToJson(source),
+          new String(SimpleParseUUT__JsonHelper.serializeToBytes(source), "UTF-8"));
+    } finally {
+      JsonFactoryHolder.setAppFactory(JsonFactoryHolder.APP_FACTORY);
+    }
+  }
+
+  @Test
+  public void copyAppFactoryTest() throws IOException {
+    JsonFactory copy = JsonFactoryHolder.APP_FACTORY.copy();
+    assertNotSame(JsonFactoryHolder.APP_FACTORY, copy);
+    assertTrue(copy instanceof PooledJsonFactory);
+
+    copy.enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES);
+    String singleQuoted = "{'" + INT_FIELD_NAME + "': 5}";
+    assertEquals(5, SimpleParseUUT__JsonHelper.parseFromJson(singleQuoted, copy).intField);
+  }
+
+  @Test
+  public void bufferRecyclerPoolTest() throws Exception {
+    BufferRecyclerPool pool = new BufferRecyclerPool(2);
+    BufferRecycler first = pool.acquire();
+    BufferRecycler second = pool.acquire();
+    assertNotSame(first, second);
+    pool.release(first);
+    assertSame(first, pool.acquire());
+
+    final SimpleParseUUT source = new SimpleParseUUT();
+    source.stringField = "pooled";
+    final String expected = SimpleParseUUT__JsonHelper.serializeToJson(source);
+    List<Thread> threads = new ArrayList<>();
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+    for (int i = 0; i < 8; i++) {
+      Thread thread =
+          new Thread() {
+            @Override
+            public void run() {
+              try {
+                for (int j = 0; j < 1000; j++) {
+                  String serialized = SimpleParseUUT__JsonHelper.serializeToJson(source);
+                  assertEquals(expected, serialized);
+                  assertEquals(
+                      "pooled", SimpleParseUUT__JsonHelper.parseFromJson(serialized).stringField);
+                  assertEquals(
+                      expected,
+                      new String(SimpleParseUUT__JsonHelper.serializeToBytes(source), "UTF-8"));
+                }
+              } catch (Throwable t) {
+                failures.add(t);
+              }
+            }
+          };
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.<Throwable>emptyList(), failures);
+  }
+
   @Test
   public void serializeWithGetterTest() throws IOException {
     GetterUUT source = new GetterUUT();
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.instagram.common.json.JsonBackend;
+import com.instagram.common.json.JsonCodec;
+import com.instagram.common.json.JsonFactoryHolder;
+import com.instagram.common.json.JsonLazyValue;
+import com.instagram.common.json.JsonOutputBuffer;
+import com.instagram.common.json.annotation.processor.uut.LazyUUT;
+import com.instagram.common.json.annotation.processor.uut.LazyUUT__JsonHelper;
+import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT;
+import com.instagram.common.json.annotation.processor.uut.SimpleParseUUT__JsonHelper;
+import com.instagram.common.json.utf8.Utf8JsonBackend;
+import com.instagram.common.json.utf8.Utf8JsonCodec;
+import com.instagram.common.json.utf8.Utf8JsonParser;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.junit.Test;
+
+/** Tests for the byte array parser and the backend that hands it to generated helpers. */
+public class Utf8JsonParserTest {
+
+  @Test
+  public void matchesJacksonTokens() throws IOException {
+    byte[] input =
+        ("{\"a\": [1, -2.5e3, true, false, null, {}, []], "
+                + "\"b\\u0063\": \"x\\\"\\n\\u00e9\u00e9\u20ac\ud83d\ude00\", "
+                + "\"c\": {\"d\": 123456789012345678}} [3]")
+            .getBytes("UTF-8");
+    JsonParser expected = JsonFactoryHolder.APP_FACTORY.createParser(input);
+    JsonParser actual = new Utf8JsonParser(input);
+    for (JsonToken token = expected.nextToken(); token != null; token = expected.nextToken()) {
+      assertEquals(token, actual.nextToken());
+      assertEquals(expected.getText(), actual.getText());
+      if (token == JsonToken.FIELD_NAME) {
+        assertEquals(expected.getCurrentName(), actual.getCurrentName());
+      } else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+        assertEquals(expected.getDoubleValue(), actual.getDoubleValue(), 0);
+        assertEquals(expected.getValueAsLong(), actual.getValueAsLong());
+      }
+    }
+    assertNull(actual.nextToken());
+  }
+
+  @Test
+  public void parsesWithGeneratedHelper() throws IOException {
+    String inputString =
+        "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\": 1,"
+            + "\"unknown\": {\"x\": [1, 2, {\"y\": \"z\"}]},"
+            + "\"" + SimpleParseUUT.STRING_FIELD_NAME + "\": \"value\","
+            + "\"" + SimpleParseUUT.INTEGER_LIST_FIELD_NAME + "\": [2, null, 3],"
+            + "\"" + SimpleParseUUT.SUBOBJECT_FIELD_NAME + "\": {"
+            + "\"" + SimpleParseUUT.SubobjectParseUUT.INT_FIELD_NAME + "\": 4}}";
+
+    JsonParser jp = new Utf8JsonParser(inputString.getBytes("UTF-8"));
+    jp.nextToken();
+    SimpleParseUUT uut = SimpleParseUUT__JsonHelper.parseFromJson(jp);
+
+    assertEquals(1, uut.intField);
+    assertEquals("value", uut.stringField);
+    assertEquals(
+        SimpleParseUUT__JsonHelper.parseFromJson(inputString).integerListField,
+        uut.integerListField);
+    assertEquals(4, uut.subobjectField.intField);
+  }
+
+  @Test
+  public void keepsTheBytesOfLazyValues() throws IOException {
+    String lazyJson = "{\"" + SimpleParseUUT.INT_FIELD_NAME + "\": 2, \"unknown\": [{}]}";
+    String inputString =
+        "{\"" + LazyUUT.LAZY_FIELD_NAME + "\": " + lazyJson + ", "
+            + "\"" + LazyUUT.INT_FIELD_NAME + "\": 1}";
+
+    JsonParser jp = new Utf8JsonParser(inputString.getBytes("UTF-8"));
+    jp.nextToken();
+    LazyUUT uut = LazyUUT__JsonHelper.parseFromJson(jp);
+
+    assertEquals(1, uut.intField);
+    assertFalse(uut.lazyField.isParsed());
+    StringWriter writer = new StringWriter();
+    JsonGenerator generator = JsonFactoryHolder.APP_FACTORY.createGenerator(writer);
+    uut.lazyField.writeUnparsedTo(generator);
+    generator.close();
+    assertEquals("{\"int\":2,\"unknown\":[{}]}", writer.toString());
+
+    JsonLazyValue<SimpleParseUUT> copy = uut.lazyField.copyUnparsed();
+    assertEquals(2, uut.lazyField.get().intField);
+    assertEquals(2, copy.get().intField);
+    assertNotSame(uut.lazyField.get(), copy.get());
+  }
+
+  @Test
+  public void backendReadsBytesWithUtf8Parser() throws IOException {
+    JsonBackend backend = new Utf8JsonBackend();
+    byte[] input = "[{\"int\": 1}]".getBytes("UTF-8");
+    JsonParser jp = backend.createParser(input, 1, input.length - 2);
+    assertTrue(jp instanceof Utf8JsonParser);
+    jp.nextToken();
+    assertEquals(1, SimpleParseUUT__JsonHelper.parseFromJson(jp).intField);
+    assertFalse(backend.createParser("{}") instanceof Utf8JsonParser);
+  }
+
+  @Test
+  public void codecReusesParserAndGenerator() throws IOException {
+    JsonCodec codec = new Utf8JsonCodec();
+    JsonParser parser = codec.resetParser("{}");
+    for (String value : new String[] {"first", "s\u00e9cond", "third"}) {
+      SimpleParseUUT source = new SimpleParseUUT();
+      source.stringField = value;
+      source.intField = value.length();
+
+      SimpleParseUUT__JsonHelper.serializeToJson(codec, source);
+      String serialized = codec.getOutputString();
+      assertEquals(SimpleParseUUT__JsonHelper.serializeToJson(source), serialized);
+
+      SimpleParseUUT parsed = SimpleParseUUT__JsonHelper.parseFromJson(codec, serialized);
+      assertEquals(value, parsed.stringField);
+      assertEquals(value.length(), parsed.intField);
+
+      JsonOutputBuffer output = codec.getOutput();
+      parsed =
+          SimpleParseUUT__JsonHelper.parseFromJson(codec, output.getBuffer(), 0, output.size());
+      assertEquals(value, parsed.stringField);
+    }
+    assertSame(parser, codec.resetParser("[]"));
+  }
+
+  @Test
+  public void rejectsMalformedJson() throws IOException {
+    for (String input : new String[] {"{\"a\" 1}", "[1 2]", "[1,]", "{\"a\": tru}", "{", "[}"}) {
+      JsonParser jp = new Utf8JsonParser(input.getBytes("UTF-8"));
+      try {
+        while (jp.nextToken() != null) {}
+        fail("Expected JsonParseException to be thrown for " + input);
+      } catch (JsonParseException ex) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void rejectsMalformedNumbers() throws IOException {
+    for (String input : new String[] {"[1.2.3]", "[1e]", "[12-3]", "[-]", "[01]", "[1.]", "[-x]"}) {
+      JsonParser jp = new Utf8JsonParser(input.getBytes("UTF-8"));
+      try {
+        while (jp.nextToken() != null) {}
+        fail("Expected JsonParseException to be thrown for " + input);
+      } catch (JsonParseException ex) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void rejectsMalformedStrings() throws IOException {
+    byte[][] inputs = {
+      {'"', (byte) 0xc3, '"'},
+      {'"', (byte) 0xe2, (byte) 0x82, '"'},
+      {'"', (byte) 0xe2, 'a', 'b', '"'},
+      {'"', (byte) 0xf0, (byte) 0x9f, (byte) 0x98, '"'},
+      {'"', (byte) 0x80, '"'},
+      {'"', (byte) 0xff, '"'},
+      {'"', '\\', 'u', '1', '2', '"'},
+      {'"', '\\', 'u', '1', '2', 'x', '4', '"'},
+    };
+    for (byte[] input : inputs) {
+      JsonParser jp = new Utf8JsonParser(input);
+      jp.nextToken();
+      try {
+        jp.getText();
+        fail("Expected JsonParseException to be thrown for " + Arrays.toString(input));
+      } catch (JsonParseException ex) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void overridesCurrentName() throws IOException {
+    JsonParser jp = new Utf8JsonParser("{\"a\": 1, \"b\": 2}".getBytes("UTF-8"));
+    assertEquals(JsonToken.START_OBJECT, jp.nextToken());
+    assertEquals(JsonToken.FIELD_NAME, jp.nextToken());
+    jp.overrideCurrentName("renamed");
+    assertEquals("renamed", jp.getCurrentName());
+    assertEquals(JsonToken.VALUE_NUMBER_INT, jp.nextToken());
+    assertEquals("renamed", jp.getCurrentName());
+    assertEquals(JsonToken.FIELD_NAME, jp.nextToken());
+    assertEquals("b", jp.getCurrentName());
+  }
+
+  @Test
+  public void rejectsOutOfRangeNumbers() throws IOException {
+    JsonParser jp = new Utf8JsonParser("[2147483648, 9223372036854775808, 1e19]".getBytes("UTF-8"));
+    jp.nextToken();
+    jp.nextToken();
+    assertEquals(2147483648L, jp.getLongValue());
+    try {
+      jp.getIntValue();
+      fail("Expected JsonParseException to be thrown for an int overflow");
+    } catch (JsonParseException ex) {
+      // expected
+    }
+    jp.nextToken();
+    assertEquals(JsonParser.NumberType.BIG_INTEGER, jp.getNumberType());
+    assertEquals(new BigInteger("9223372036854775808"), jp.getNumberValue());
+    try {
+      jp.getLongValue();
+      fail("Expected JsonParseException to be thrown for a long overflow");
+    } catch (JsonParseException ex) {
+      // expected
+    }
+    jp.nextToken();
+    try {
+      jp.getLongValue();
+      fail("Expected JsonParseException to be thrown for a long overflow");
+    } catch (JsonParseException ex) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor.uut;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+
+/**
+ * UUT for dispatching field names to fields. "Aa", "BB" and "C#" share a hash code, as do "AaAa",
+ * "AaBB", "BBAa" and "BBBB", so the names can only be told apart by their characters.
+ */
+@JsonType
+public class FieldDispatchUUT {
+  public static final String AA_FIELD_NAME = "Aa";
+  public static final String AA_ALTERNATE_FIELD_NAME = "C#";
+  public static final String BB_FIELD_NAME = "BB";
+  public static final String AAAA_FIELD_NAME = "AaAa";
+  public static final String AAAA_ALTERNATE_FIELD_NAME = "BBBB";
+  public static final String AABB_FIELD_NAME = "AaBB";
+  public static final String UNKNOWN_FIELD_NAME = "BBAa";
+
+  @JsonField(fieldName = AA_FIELD_NAME, alternateFieldNames = AA_ALTERNATE_FIELD_NAME)
+  public String aaField;
+
+  @JsonField(fieldName = BB_FIELD_NAME)
+  public String bbField;
+
+  @JsonField(fieldName = AAAA_FIELD_NAME, alternateFieldNames = AAAA_ALTERNATE_FIELD_NAME)
+  public String aaaaField;
+
+  @JsonField(fieldName = AABB_FIELD_NAME)
+  public int aabbField;
+}
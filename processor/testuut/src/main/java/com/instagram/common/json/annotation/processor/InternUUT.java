@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+
+package com.instagram.common.json.annotation.processor.uut;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+import java.util.List;
+
+/** UUT to test string fields whose values are read through the string pool. */
+@JsonType
+public class InternUUT {
+
+  public static final String TYPE_FIELD_NAME = "type";
+  public static final String TAGS_FIELD_NAME = "tags";
+  public static final String CAPTION_FIELD_NAME = "caption";
+
+  @JsonField(fieldName = TYPE_FIELD_NAME, intern = true, mapping = JsonField.TypeMapping.EXACT)
+  public String typeField;
+
+  @JsonField(fieldName = TAGS_FIELD_NAME, intern = true)
+  public List<String> tagsField;
+
+  @JsonField(fieldName = CAPTION_FIELD_NAME)
+  public String captionField;
+}
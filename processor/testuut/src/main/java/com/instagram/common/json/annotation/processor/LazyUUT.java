@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor.uut;
+
+import com.instagram.common.json.JsonLazyValue;
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+
+/** UUT to test fields that are only parsed when they are first read. */
+@JsonType
+public class LazyUUT {
+
+  public static final String INT_FIELD_NAME = "int";
+  public static final String LAZY_FIELD_NAME = "lazy";
+
+  @JsonField(fieldName = INT_FIELD_NAME)
+  public int intField;
+
+  @JsonField(fieldName = LAZY_FIELD_NAME, lazy = true)
+  public JsonLazyValue<SimpleParseUUT> lazyField;
+}
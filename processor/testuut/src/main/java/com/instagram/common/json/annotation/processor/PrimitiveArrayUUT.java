@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+
+package com.instagram.common.json.annotation.processor.uut;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+
+/** UUT to test fields that hold arrays of primitives. */
+@JsonType
+public class PrimitiveArrayUUT {
+
+  public static final String INT_ARRAY_FIELD_NAME = "int_array";
+  public static final String LONG_ARRAY_FIELD_NAME = "long_array";
+  public static final String FLOAT_ARRAY_FIELD_NAME = "float_array";
+  public static final String DOUBLE_ARRAY_FIELD_NAME = "double_array";
+  public static final String BOOLEAN_ARRAY_FIELD_NAME = "boolean_array";
+  public static final String EXACT_INT_ARRAY_FIELD_NAME = "exact_int_array";
+  public static final String EXACT_BOOLEAN_ARRAY_FIELD_NAME = "exact_boolean_array";
+
+  @JsonField(fieldName = INT_ARRAY_FIELD_NAME)
+  public int[] intArrayField;
+
+  @JsonField(fieldName = LONG_ARRAY_FIELD_NAME)
+  public long[] longArrayField;
+
+  @JsonField(fieldName = FLOAT_ARRAY_FIELD_NAME)
+  public float[] floatArrayField;
+
+  @JsonField(fieldName = DOUBLE_ARRAY_FIELD_NAME)
+  public double[] doubleArrayField;
+
+  @JsonField(fieldName = BOOLEAN_ARRAY_FIELD_NAME)
+  public boolean[] booleanArrayField;
+
+  @JsonField(fieldName = EXACT_INT_ARRAY_FIELD_NAME, mapping = JsonField.TypeMapping.EXACT)
+  public int[] exactIntArrayField;
+
+  @JsonField(fieldName = EXACT_BOOLEAN_ARRAY_FIELD_NAME, mapping = JsonField.TypeMapping.EXACT)
+  public boolean[] exactBooleanArrayField;
+}
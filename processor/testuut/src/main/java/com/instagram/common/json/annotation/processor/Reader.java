@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor.uut;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+import java.util.List;
+
+/**
+ * Class named like types the generated helpers use, to check that the helpers do not import them
+ * over the model.
+ */
+@JsonType
+public class Reader {
+
+  @JsonField(fieldName = "name")
+  public String mName;
+
+  @JsonField(fieldName = "next")
+  public Reader mNext;
+
+  @JsonField(fieldName = "others")
+  public List<Reader> mOthers;
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor.uut;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+
+/** UUT for reusing and merging into the fields a class inherits from another {@link JsonType}. */
+@JsonType
+public class SubclassOfSimpleParseUUT extends SimpleParseUUT {
+  public static final String SUBCLASS_INT_FIELD_NAME = "subclass_int";
+
+  @JsonField(fieldName = SUBCLASS_INT_FIELD_NAME)
+  public int subclassIntField;
+}
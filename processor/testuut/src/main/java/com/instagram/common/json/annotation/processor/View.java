@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor.uut;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+import java.util.List;
+
+/**
+ * Class named like the classes nested in the generated helpers, to check that they do not hide the
+ * model.
+ */
+@JsonType
+public class View {
+
+  @JsonField(fieldName = "name")
+  public String mName;
+
+  @JsonField(fieldName = "next")
+  public View mNext;
+
+  @JsonField(fieldName = "children")
+  public List<View> mChildren;
+}
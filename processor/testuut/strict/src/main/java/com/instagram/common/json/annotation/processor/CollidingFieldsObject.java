@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+
+/** A strict class whose field names share a hash code: "Aa", "BB" and "C#". */
+@JsonType(strict = true)
+public class CollidingFieldsObject {
+
+  private final String mAa;
+
+  @JsonField(fieldName = "BB")
+  String mBb;
+
+  public CollidingFieldsObject(
+      @JsonField(fieldName = "Aa", alternateFieldNames = {"C#"}) String aa) {
+    mAa = aa;
+  }
+
+  public String getAa() {
+    return mAa;
+  }
+}
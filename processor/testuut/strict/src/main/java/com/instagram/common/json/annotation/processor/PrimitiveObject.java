@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.annotation.processor;
+
+import com.instagram.common.json.annotation.JsonField;
+import com.instagram.common.json.annotation.JsonType;
+
+@JsonType(strict = true)
+public class PrimitiveObject {
+
+  static final long COUNT_DEFAULT = 5;
+
+  private final int mId;
+
+  @JsonField(fieldName = "count")
+  long mCount = COUNT_DEFAULT;
+
+  @JsonField(fieldName = "enabled")
+  boolean mEnabled;
+
+  public PrimitiveObject(@JsonField(fieldName = "id") int id) {
+    mId = id;
+  }
+
+  public int getId() {
+    return mId;
+  }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.utf8;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.instagram.common.json.JacksonBackend;
+
+/**
+ * A {@link com.instagram.common.json.JsonBackend} that reads byte arrays with {@link
+ * Utf8JsonParser} and leaves everything else to jackson. Select it by passing {@code
+ * -AjsonBackend=com.instagram.common.json.utf8.Utf8JsonBackend} to javac.
+ */
+public class Utf8JsonBackend extends JacksonBackend {
+
+  @Override
+  public JsonParser createParser(byte[] content, int offset, int length) {
+    return new Utf8JsonParser(content, offset, length);
+  }
+}
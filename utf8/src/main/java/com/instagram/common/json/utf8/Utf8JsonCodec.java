@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.utf8;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.instagram.common.json.JsonCodec;
+
+/** A {@link JsonCodec} that reads every document with the same {@link Utf8JsonParser}. */
+public class Utf8JsonCodec extends JsonCodec {
+  private final Utf8JsonParser mParser = new Utf8JsonParser(new byte[0]);
+
+  @Override
+  public JsonParser resetParser(byte[] input, int offset, int length) {
+    mParser.reset(input, offset, length);
+    return mParser;
+  }
+}
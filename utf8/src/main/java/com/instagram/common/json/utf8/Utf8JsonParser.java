@@ -0,0 +1,693 @@
+/*
+ * Copyright (c) Meta Platforms, Inc. and affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.instagram.common.json.utf8;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.instagram.common.json.JsonByteSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A parser for UTF-8 json held in a byte array, which implements only what generated JsonHelpers
+ * need. Pass one to any generated {@code parseFromJson(JsonParser)}.
+ *
+ * <p>Compared to jackson's own UTF-8 parser, it does not track a parsing context or a location,
+ * does not canonicalize field names, and decodes strings and numbers straight from the input the
+ * first time they are read. Values that are skipped are never decoded. Because the class is final
+ * and is the only parser a hot parse loop sees, the JIT can inline its methods into the generated
+ * code.
+ *
+ * <p>{@link #getCurrentName()} is only available on a {@link JsonToken#FIELD_NAME} and on the
+ * value that follows it, where {@link #overrideCurrentName(String)} can replace it, and {@link
+ * #getParsingContext()} returns null. A string is only checked to be valid UTF-8 when it is
+ * decoded, so one that is skipped is never checked.
+ *
+ * <p>A parser can be pointed at new input with {@link #reset(byte[], int, int)}, which keeps the
+ * buffers it has grown, so that a stream of small documents is read without allocating a parser
+ * for each of them.
+ */
+public final class Utf8JsonParser extends ParserMinimalBase implements JsonByteSource {
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+  /** What the next token may be. */
+  private static final int EXPECT_VALUE = 0;
+
+  private static final int EXPECT_NAME_OR_END = 1;
+  private static final int EXPECT_VALUE_OR_END = 2;
+  private static final int EXPECT_COLON = 3;
+  private static final int EXPECT_COMMA_OR_END = 4;
+
+  private byte[] mInput;
+  private int mEnd;
+  private int mPosition;
+
+  private int mExpect = EXPECT_VALUE;
+
+  /** Whether each open container is an object, by depth. */
+  private boolean[] mInObject = new boolean[16];
+
+  private int mDepth;
+
+  /** The first byte of the current token and, for strings, the byte after its closing quote. */
+  private int mTokenStart;
+
+  private int mTokenEnd;
+
+  private int mNameStart;
+  private int mNameEnd;
+
+  /** Whether the current string and the current name are plain ascii, without escapes. */
+  private boolean mTokenAscii;
+
+  private boolean mNameAscii;
+
+  /** Set by {@link #skipString(int)}. */
+  private boolean mLastStringAscii;
+
+  /** Whether the most recent field name applies to the current token. */
+  private boolean mHasName;
+
+  /** The name that replaces the most recent field name, or null if it has not been overridden. */
+  private String mNameOverride;
+
+  /** Holds the decoded characters of the current string, once they have been asked for. */
+  private char[] mChars = new char[64];
+
+  private int mCharsLength;
+  private boolean mCharsDecoded;
+
+  private ObjectCodec mCodec;
+  private boolean mClosed;
+
+  public Utf8JsonParser(byte[] input) {
+    this(input, 0, input.length);
+  }
+
+  public Utf8JsonParser(byte[] input, int offset, int length) {
+    mInput = input;
+    mPosition = offset;
+    mEnd = offset + length;
+  }
+
+  /**
+   * Starts reading a new document, as if this were a new parser for it. The parser is positioned
+   * before the first token, and is open again if it was closed.
+   */
+  public void reset(byte[] input, int offset, int length) {
+    mInput = input;
+    mPosition = offset;
+    mEnd = offset + length;
+    mExpect = EXPECT_VALUE;
+    mDepth = 0;
+    mHasName = false;
+    mNameOverride = null;
+    mCharsDecoded = false;
+    mClosed = false;
+    _currToken = null;
+    _lastClearedToken = null;
+  }
+
+  @Override
+  public JsonToken nextToken() throws IOException {
+    mHasName = _currToken == JsonToken.FIELD_NAME;
+    mCharsDecoded = false;
+    int position = skipWhitespace(mPosition);
+
+    if (mExpect == EXPECT_COMMA_OR_END) {
+      if (position >= mEnd) {
+        return endOfInput();
+      }
+      byte b = mInput[position];
+      if (b == ',') {
+        position = skipWhitespace(position + 1);
+        mExpect = mInObject[mDepth - 1] ? EXPECT_NAME_OR_END : EXPECT_VALUE;
+        if (position < mEnd && (mInput[position] == '}' || mInput[position] == ']')) {
+          throw _constructError("Unexpected '" + (char) mInput[position] + "' after ','");
+        }
+      } else {
+        return closeContainer(position, b);
+      }
+    } else if (mExpect == EXPECT_COLON) {
+      if (position >= mEnd || mInput[position] != ':') {
+        throw _constructError("Expected ':' after a field name");
+      }
+      position = skipWhitespace(position + 1);
+      mExpect = EXPECT_VALUE;
+    }
+
+    if (position >= mEnd) {
+      return endOfInput();
+    }
+    byte b = mInput[position];
+    mTokenStart = position;
+    if (mExpect == EXPECT_NAME_OR_END) {
+      if (b == '"') {
+        mNameStart = position + 1;
+        mNameEnd = skipString(position) - 1;
+        mNameAscii = mLastStringAscii;
+        mNameOverride = null;
+        mPosition = mNameEnd + 1;
+        mExpect = EXPECT_COLON;
+        return (_currToken = JsonToken.FIELD_NAME);
+      }
+      return closeContainer(position, b);
+    }
+    if (mExpect == EXPECT_VALUE_OR_END && b == ']') {
+      return closeContainer(position, b);
+    }
+
+    mExpect = mDepth == 0 ? EXPECT_VALUE : EXPECT_COMMA_OR_END;
+    switch (b) {
+      case '{':
+        return openContainer(position, true);
+      case '[':
+        return openContainer(position, false);
+      case '"':
+        mTokenEnd = skipString(position);
+        mTokenAscii = mLastStringAscii;
+        mPosition = mTokenEnd;
+        return (_currToken = JsonToken.VALUE_STRING);
+      case 't':
+        return literal(position, "true", JsonToken.VALUE_TRUE);
+      case 'f':
+        return literal(position, "false", JsonToken.VALUE_FALSE);
+      case 'n':
+        return literal(position, "null", JsonToken.VALUE_NULL);
+      default:
+        return number(position);
+    }
+  }
+
+  private JsonToken openContainer(int position, boolean isObject) {
+    if (mDepth == mInObject.length) {
+      mInObject = Arrays.copyOf(mInObject, mDepth * 2);
+    }
+    mInObject[mDepth++] = isObject;
+    mExpect = isObject ? EXPECT_NAME_OR_END : EXPECT_VALUE_OR_END;
+    mPosition = position + 1;
+    return (_currToken = isObject ? JsonToken.START_OBJECT : JsonToken.START_ARRAY);
+  }
+
+  private JsonToken closeContainer(int position, byte b) throws JsonParseException {
+    boolean isObject = mDepth > 0 && mInObject[mDepth - 1];
+    if (mDepth == 0 || b != (isObject ? '}' : ']')) {
+      throw _constructError("Unexpected character '" + (char) b + "'");
+    }
+    mDepth--;
+    mHasName = false;
+    mTokenStart = position;
+    mExpect = mDepth == 0 ? EXPECT_VALUE : EXPECT_COMMA_OR_END;
+    mPosition = position + 1;
+    return (_currToken = isObject ? JsonToken.END_OBJECT : JsonToken.END_ARRAY);
+  }
+
+  private JsonToken literal(int position, String literal, JsonToken token)
+      throws JsonParseException {
+    int end = position + literal.length();
+    if (end > mEnd) {
+      throw _constructError("Unexpected end of input");
+    }
+    for (int i = 1; i < literal.length(); i++) {
+      if (mInput[position + i] != literal.charAt(i)) {
+        throw _constructError("Expected '" + literal + "'");
+      }
+    }
+    mPosition = end;
+    return (_currToken = token);
+  }
+
+  /** Reads a number that follows the json grammar, which is what the getters rely on. */
+  private JsonToken number(int position) throws JsonParseException {
+    int end = position;
+    if (mInput[end] == '-') {
+      end++;
+    } else if (mInput[end] < '0' || mInput[end] > '9') {
+      throw _constructError("Unexpected character '" + (char) mInput[position] + "'");
+    }
+    // a leading zero is not followed by more digits.
+    end = end < mEnd && mInput[end] == '0' ? end + 1 : digits(end);
+    boolean isInteger = true;
+    if (end < mEnd && mInput[end] == '.') {
+      isInteger = false;
+      end = digits(end + 1);
+    }
+    if (end < mEnd && (mInput[end] == 'e' || mInput[end] == 'E')) {
+      isInteger = false;
+      end++;
+      if (end < mEnd && (mInput[end] == '+' || mInput[end] == '-')) {
+        end++;
+      }
+      end = digits(end);
+    }
+    if (end < mEnd && isNumberByte(mInput[end])) {
+      throw _constructError(
+          "Malformed number " + new String(mInput, position, end + 1 - position, ISO_8859_1));
+    }
+    mTokenEnd = end;
+    mPosition = end;
+    return (_currToken = isInteger ? JsonToken.VALUE_NUMBER_INT : JsonToken.VALUE_NUMBER_FLOAT);
+  }
+
+  /** Returns the position after the one or more digits that start at a position. */
+  private int digits(int position) throws JsonParseException {
+    int end = position;
+    while (end < mEnd && mInput[end] >= '0' && mInput[end] <= '9') {
+      end++;
+    }
+    if (end == position) {
+      throw _constructError(
+          end < mEnd
+              ? "Expected a digit in a number, got '" + (char) mInput[end] + "'"
+              : "Unexpected end of input in a number");
+    }
+    return end;
+  }
+
+  private JsonToken endOfInput() throws JsonParseException {
+    if (mDepth > 0 || mExpect == EXPECT_COLON) {
+      _handleEOF();
+    }
+    mPosition = mEnd;
+    mHasName = false;
+    return (_currToken = null);
+  }
+
+  /** Returns the position after the closing quote of the string that starts at a position. */
+  private int skipString(int position) throws JsonParseException {
+    boolean ascii = true;
+    for (int i = position + 1; i < mEnd; i++) {
+      byte b = mInput[i];
+      if (b == '"') {
+        mLastStringAscii = ascii;
+        return i + 1;
+      } else if (b == '\\') {
+        ascii = false;
+        i++;
+      } else if (b < 0) {
+        ascii = false;
+      }
+    }
+    throw _constructError("Unexpected end of input in a string");
+  }
+
+  private int skipWhitespace(int position) {
+    while (position < mEnd) {
+      byte b = mInput[position];
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      position++;
+    }
+    return position;
+  }
+
+  private static boolean isNumberByte(byte b) {
+    return (b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '-' || b == '+';
+  }
+
+  @Override
+  protected void _handleEOF() throws JsonParseException {
+    throw _constructError("Unexpected end of input");
+  }
+
+  @Override
+  public String getCurrentName() throws IOException {
+    if (_currToken == JsonToken.FIELD_NAME || mHasName) {
+      if (mNameOverride != null) {
+        return mNameOverride;
+      }
+      if (mNameAscii) {
+        return new String(mInput, mNameStart, mNameEnd - mNameStart, ISO_8859_1);
+      }
+      decode(mNameStart, mNameEnd);
+      mCharsDecoded = false;
+      return new String(mChars, 0, mCharsLength);
+    }
+    return null;
+  }
+
+  @Override
+  public void overrideCurrentName(String name) {
+    // the name then applies to the current token, until the parser moves past it.
+    mNameOverride = name;
+    mHasName = true;
+  }
+
+  @Override
+  public String getText() throws IOException {
+    if (_currToken == null) {
+      return null;
+    }
+    switch (_currToken) {
+      case FIELD_NAME:
+        return getCurrentName();
+      case VALUE_STRING:
+        if (mTokenAscii) {
+          // ascii copies straight into a string, without going through mChars.
+          return new String(mInput, mTokenStart + 1, mTokenEnd - mTokenStart - 2, ISO_8859_1);
+        }
+        decodeCurrentText();
+        return new String(mChars, 0, mCharsLength);
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return new String(mInput, mTokenStart, mTokenEnd - mTokenStart, ISO_8859_1);
+      default:
+        return _currToken.asString();
+    }
+  }
+
+  @Override
+  public char[] getTextCharacters() throws IOException {
+    if (_currToken == JsonToken.FIELD_NAME || _currToken == JsonToken.VALUE_STRING) {
+      decodeCurrentText();
+      return mChars;
+    }
+    String text = getText();
+    return text == null ? null : text.toCharArray();
+  }
+
+  @Override
+  public boolean hasTextCharacters() {
+    return _currToken == JsonToken.FIELD_NAME || _currToken == JsonToken.VALUE_STRING;
+  }
+
+  @Override
+  public int getTextLength() throws IOException {
+    if (_currToken == JsonToken.FIELD_NAME || _currToken == JsonToken.VALUE_STRING) {
+      decodeCurrentText();
+      return mCharsLength;
+    }
+    String text = getText();
+    return text == null ? 0 : text.length();
+  }
+
+  @Override
+  public int getTextOffset() {
+    return 0;
+  }
+
+  @Override
+  public String getValueAsString(String defaultValue) throws IOException {
+    if (_currToken == JsonToken.VALUE_STRING) {
+      return getText();
+    }
+    return super.getValueAsString(defaultValue);
+  }
+
+  private void decodeCurrentText() throws JsonParseException {
+    if (!mCharsDecoded) {
+      if (_currToken == JsonToken.FIELD_NAME) {
+        decode(mNameStart, mNameEnd);
+      } else {
+        decode(mTokenStart + 1, mTokenEnd - 1);
+      }
+      mCharsDecoded = true;
+    }
+  }
+
+  /**
+   * Decodes the json string between two positions, excluding its quotes, into mChars. Malformed
+   * escapes and UTF-8 sequences that are cut short or have a bad byte are reported as errors.
+   */
+  private void decode(int start, int end) throws JsonParseException {
+    if (mChars.length < end - start) {
+      // every byte decodes to at most one char.
+      mChars = new char[end - start];
+    }
+    char[] chars = mChars;
+    int length = 0;
+    int position = start;
+    while (position < end) {
+      int b = mInput[position++];
+      if (b >= 0 && b != '\\') {
+        chars[length++] = (char) b;
+      } else if (b == '\\') {
+        byte escaped = mInput[position++];
+        switch (escaped) {
+          case 'b':
+            chars[length++] = '\b';
+            break;
+          case 'f':
+            chars[length++] = '\f';
+            break;
+          case 'n':
+            chars[length++] = '\n';
+            break;
+          case 'r':
+            chars[length++] = '\r';
+            break;
+          case 't':
+            chars[length++] = '\t';
+            break;
+          case 'u':
+            if (position + 4 > end) {
+              throw _constructError("Unexpected end of a \\u escape");
+            }
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+              int digit = Character.digit(mInput[position++], 16);
+              if (digit < 0) {
+                throw _constructError("Expected a hex digit in a \\u escape");
+              }
+              value = (value << 4) | digit;
+            }
+            chars[length++] = (char) value;
+            break;
+          default:
+            chars[length++] = (char) escaped;
+            break;
+        }
+      } else if ((b & 0xe0) == 0xc0) {
+        chars[length++] = (char) (((b & 0x1f) << 6) | continuation(position++, end));
+      } else if ((b & 0xf0) == 0xe0) {
+        chars[length++] =
+            (char)
+                (((b & 0x0f) << 12)
+                    | (continuation(position, end) << 6)
+                    | continuation(position + 1, end));
+        position += 2;
+      } else if ((b & 0xf8) == 0xf0) {
+        int codePoint =
+            ((b & 0x07) << 18)
+                | (continuation(position, end) << 12)
+                | (continuation(position + 1, end) << 6)
+                | continuation(position + 2, end);
+        position += 3;
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT
+            || codePoint > Character.MAX_CODE_POINT) {
+          throw _constructError("Invalid UTF-8 code point " + Integer.toHexString(codePoint));
+        }
+        chars[length++] = Character.highSurrogate(codePoint);
+        chars[length++] = Character.lowSurrogate(codePoint);
+      } else {
+        throw _constructError("Invalid UTF-8 start byte 0x" + Integer.toHexString(b & 0xff));
+      }
+    }
+    mCharsLength = length;
+  }
+
+  /** Returns the payload bits of the UTF-8 continuation byte at a position. */
+  private int continuation(int position, int end) throws JsonParseException {
+    if (position >= end) {
+      throw _constructError("Unexpected end of a UTF-8 sequence");
+    }
+    int b = mInput[position];
+    if ((b & 0xc0) != 0x80) {
+      throw _constructError("Invalid UTF-8 continuation byte 0x" + Integer.toHexString(b & 0xff));
+    }
+    return b & 0x3f;
+  }
+
+  @Override
+  public NumberType getNumberType() throws IOException {
+    checkNumber();
+    if (_currToken == JsonToken.VALUE_NUMBER_FLOAT) {
+      return NumberType.DOUBLE;
+    }
+    if (!isLongInteger()) {
+      return NumberType.BIG_INTEGER;
+    }
+    long value = getLongValue();
+    return value == (int) value ? NumberType.INT : NumberType.LONG;
+  }
+
+  @Override
+  public Number getNumberValue() throws IOException {
+    switch (getNumberType()) {
+      case INT:
+        return getIntValue();
+      case LONG:
+        return getLongValue();
+      case BIG_INTEGER:
+        return getBigIntegerValue();
+      default:
+        return getDoubleValue();
+    }
+  }
+
+  @Override
+  public int getIntValue() throws IOException {
+    long value = getLongValue();
+    if (value != (int) value) {
+      throw _constructError("Numeric value (" + getText() + ") out of range of int");
+    }
+    return (int) value;
+  }
+
+  @Override
+  public long getLongValue() throws IOException {
+    checkNumber();
+    if (_currToken == JsonToken.VALUE_NUMBER_INT) {
+      int position = mTokenStart;
+      boolean negative = mInput[position] == '-';
+      if (negative) {
+        position++;
+      }
+      if (mTokenEnd - position <= 18) {
+        // at most 18 digits always fit in a long, so there is no need to check for overflow.
+        long value = 0;
+        for (; position < mTokenEnd; position++) {
+          value = value * 10 + (mInput[position] - '0');
+        }
+        return negative ? -value : value;
+      }
+      if (!isLongInteger()) {
+        throw _constructError("Numeric value (" + getText() + ") out of range of long");
+      }
+      return getBigIntegerValue().longValue();
+    }
+    double value = getDoubleValue();
+    // (double) Long.MAX_VALUE rounds up to 2^63, which is already out of range.
+    if (value < Long.MIN_VALUE || value >= (double) Long.MAX_VALUE || Double.isNaN(value)) {
+      throw _constructError("Numeric value (" + getText() + ") out of range of long");
+    }
+    return (long) value;
+  }
+
+  /** Returns true if the current integer fits in a long. */
+  private boolean isLongInteger() throws IOException {
+    int digits = mTokenEnd - mTokenStart - (mInput[mTokenStart] == '-' ? 1 : 0);
+    return digits <= 18 || getBigIntegerValue().bitLength() <= 63;
+  }
+
+  @Override
+  public BigInteger getBigIntegerValue() throws IOException {
+    checkNumber();
+    return _currToken == JsonToken.VALUE_NUMBER_INT
+        ? new BigInteger(getText())
+        : getDecimalValue().toBigInteger();
+  }
+
+  @Override
+  public float getFloatValue() throws IOException {
+    return (float) getDoubleValue();
+  }
+
+  @Override
+  public double getDoubleValue() throws IOException {
+    checkNumber();
+    if (_currToken == JsonToken.VALUE_NUMBER_INT && mTokenEnd - mTokenStart <= 15) {
+      // integers of up to 15 digits convert to a double exactly.
+      return getLongValue();
+    }
+    return Double.parseDouble(getText());
+  }
+
+  @Override
+  public BigDecimal getDecimalValue() throws IOException {
+    checkNumber();
+    return new BigDecimal(getText());
+  }
+
+  private void checkNumber() throws JsonParseException {
+    if (_currToken != JsonToken.VALUE_NUMBER_INT && _currToken != JsonToken.VALUE_NUMBER_FLOAT) {
+      throw _constructError("Current token (" + _currToken + ") is not a number");
+    }
+  }
+
+  @Override
+  public Object getEmbeddedObject() {
+    return null;
+  }
+
+  @Override
+  public byte[] getBinaryValue(Base64Variant b64variant) throws IOException {
+    if (_currToken != JsonToken.VALUE_STRING) {
+      throw _constructError("Current token (" + _currToken + ") is not a base64 string");
+    }
+    ByteArrayBuilder builder = new ByteArrayBuilder();
+    _decodeBase64(getText(), builder, b64variant);
+    return builder.toByteArray();
+  }
+
+  @Override
+  public ObjectCodec getCodec() {
+    return mCodec;
+  }
+
+  @Override
+  public void setCodec(ObjectCodec codec) {
+    mCodec = codec;
+  }
+
+  @Override
+  public Version version() {
+    return Version.unknownVersion();
+  }
+
+  @Override
+  public JsonStreamContext getParsingContext() {
+    return null;
+  }
+
+  @Override
+  public JsonLocation getCurrentLocation() {
+    return new JsonLocation(null, mPosition, -1, -1);
+  }
+
+  @Override
+  public JsonLocation getTokenLocation() {
+    return new JsonLocation(null, mTokenStart, -1, -1);
+  }
+
+  @Override
+  public byte[] getInputBytes() {
+    return mInput;
+  }
+
+  @Override
+  public int getTokenStart() {
+    return mTokenStart;
+  }
+
+  @Override
+  public int getTokenEnd() {
+    return mPosition;
+  }
+
+  @Override
+  public void close() {
+    mClosed = true;
+  }
+
+  @Override
+  public boolean isClosed() {
+    return mClosed;
+  }
+}